@@ -0,0 +1,80 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Benchmark
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+final class BenchmarkHttpRequest implements HttpRequest {
+
+    private final URI requestUri;
+    private final ImmutableListMultimap<String, String> headers;
+    private final String contentType;
+    private final byte[] body;
+
+    BenchmarkHttpRequest(final String requestUri, final ImmutableListMultimap<String, String> headers,
+            final String contentType, final String body) {
+        this.requestUri = URI.create(requestUri);
+        this.headers = headers;
+        this.contentType = contentType;
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getRemote() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public String getMethod() {
+        return "POST";
+    }
+
+    @Override
+    public URI getRequestUri() {
+        return requestUri;
+    }
+
+    @Override
+    public Multimap<String, String> getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public Charset getCharset() {
+        return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public byte[] getBody() {
+        return body;
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Benchmark
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CorrelationIdGeneratorBenchmark {
+
+    // neither generator looks at the request
+    private static final RawHttpRequest REQUEST = null;
+
+    private final CorrelationIdGenerator uuid = CorrelationIdGenerator.uuid();
+    private final CorrelationIdGenerator timeBased = CorrelationIdGenerator.timeBased();
+
+    @Benchmark
+    @Threads(1)
+    public String uuid() {
+        return uuid.generate(REQUEST);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String timeBased() {
+        return timeBased.generate(REQUEST);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String uuidContended() {
+        return uuid.generate(REQUEST);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String timeBasedContended() {
+        return timeBased.generate(REQUEST);
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Benchmark
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableListMultimap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
+import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the current formatter with its stream based predecessor. Run with {@code -prof gc} to see the allocation
+ * rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DefaultHttpLogFormatterBenchmark {
+
+    private static final String CORRELATION_ID = "3ce91230-677b-11e5-87b7-10ddb1ee7671";
+
+    private final HttpLogFormatter current = new DefaultHttpLogFormatter();
+    private final HttpLogFormatter legacy = new LegacyDefaultHttpLogFormatter();
+
+    private final HttpRequest request = new BenchmarkHttpRequest("http://localhost/orders?limit=10",
+            ImmutableListMultimap.<String, String>builder()
+                    .put("Accept", "application/json")
+                    .put("Accept-Encoding", "gzip")
+                    .put("Accept-Encoding", "deflate")
+                    .put("Content-Type", "application/json")
+                    .put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64)")
+                    .build(),
+            "application/json",
+            "{\"customer\":\"Bob\",\"items\":[{\"sku\":\"ABC-123\",\"quantity\":2}]}");
+
+    private final HttpResponse response = new BenchmarkHttpResponse(201,
+            ImmutableListMultimap.of(
+                    "Content-Type", "application/json",
+                    "Date", "Tue, 15 Nov 1994 08:12:31 GMT",
+                    "Location", "http://localhost/orders/1"),
+            "application/json",
+            "{\"id\":1,\"status\":\"created\"}");
+
+    private final Precorrelation<HttpRequest> precorrelation = new SimplePrecorrelation<>(CORRELATION_ID, request);
+    private final Correlation<HttpRequest, HttpResponse> correlation =
+            new SimpleCorrelation<>(CORRELATION_ID, request, response);
+
+    @Benchmark
+    public String currentRequest() throws IOException {
+        return current.format(precorrelation);
+    }
+
+    @Benchmark
+    public String legacyRequest() throws IOException {
+        return legacy.format(precorrelation);
+    }
+
+    @Benchmark
+    public String currentResponse() throws IOException {
+        return current.format(correlation);
+    }
+
+    @Benchmark
+    public String legacyResponse() throws IOException {
+        return legacy.format(correlation);
+    }
+
+}
@@ -0,0 +1,155 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Benchmark
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Measures how fast bodies get through {@link TeeResponse}, written byte by byte or char by char as template engines
+ * tend to do, and in one go.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TeeResponseBenchmark {
+
+    private static final HttpServletRequest REQUEST = null;
+
+    @Param({"128", "16384"})
+    private int length;
+
+    private String text;
+    private byte[] bytes;
+
+    private final HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+            HttpServletResponse.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+            (proxy, method, arguments) -> {
+                switch (method.getName()) {
+                    case "getOutputStream":
+                        return new DiscardingServletOutputStream();
+                    case "getCharacterEncoding":
+                        return "UTF-8";
+                    default:
+                        return null;
+                }
+            });
+
+    @Setup
+    public void setUp() {
+        this.text = Strings.repeat("x", length);
+        this.bytes = text.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public int streamByteByByte() throws IOException {
+        final TeeResponse tee = new TeeResponse(REQUEST, response, Integer.MAX_VALUE);
+        final ServletOutputStream stream = tee.getOutputStream();
+
+        for (final byte b : bytes) {
+            stream.write(b);
+        }
+
+        return capture(tee);
+    }
+
+    @Benchmark
+    public int streamAtOnce() throws IOException {
+        final TeeResponse tee = new TeeResponse(REQUEST, response, Integer.MAX_VALUE);
+        tee.getOutputStream().write(bytes);
+        return capture(tee);
+    }
+
+    @Benchmark
+    public int writerCharByChar() throws IOException {
+        final TeeResponse tee = new TeeResponse(REQUEST, response, Integer.MAX_VALUE);
+        final PrintWriter writer = tee.getWriter();
+
+        for (int index = 0; index < text.length(); index++) {
+            writer.write(text.charAt(index));
+        }
+
+        return capture(tee);
+    }
+
+    @Benchmark
+    public int writerAtOnce() throws IOException {
+        final TeeResponse tee = new TeeResponse(REQUEST, response, Integer.MAX_VALUE);
+        tee.getWriter().write(text);
+        return capture(tee);
+    }
+
+    private static int capture(final TeeResponse tee) throws IOException {
+        tee.getWriter().flush();
+        final int length = tee.withBody().getBodyAsString().length();
+        tee.release();
+        return length;
+    }
+
+    private static final class DiscardingServletOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(final int b) {
+            // discard
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            // discard
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener listener) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * An {@link HttpLogFormatter} that is able to write its messages into a caller-supplied {@link Appendable}, rather
+ * than returning them as {@link String strings}. Combined with a {@link CharSequenceHttpLogWriter}, this avoids
+ * materializing every message as a string.
+ */
+public interface AppendableHttpLogFormatter extends HttpLogFormatter {
+
+    void format(final Precorrelation<HttpRequest> precorrelation, final Appendable output) throws IOException;
+
+    void format(final Correlation<HttpRequest, HttpResponse> correlation, final Appendable output) throws IOException;
+
+    @Override
+    default String format(final Precorrelation<HttpRequest> precorrelation) throws IOException {
+        final StringBuilder output = new StringBuilder();
+        format(precorrelation, output);
+        return output.toString();
+    }
+
+    @Override
+    default String format(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException {
+        final StringBuilder output = new StringBuilder();
+        format(correlation, output);
+        return output.toString();
+    }
+
+}
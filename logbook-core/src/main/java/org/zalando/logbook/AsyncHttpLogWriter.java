@@ -0,0 +1,255 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decorates an {@link HttpLogWriter} and hands formatted messages over to a dedicated consumer thread, so that slow
+ * writers don't add their latency to the request thread. Messages are buffered in a bounded, lock-free ring buffer
+ * and written in batches. If the buffer is full, the configured {@link Overflow overflow policy} applies.
+ */
+public final class AsyncHttpLogWriter implements HttpLogWriter, Closeable {
+
+    public enum Overflow {
+
+        /**
+         * Waits for the consumer thread to free up space.
+         */
+        BLOCK,
+
+        /**
+         * Discards the message that is about to be enqueued.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Discards the oldest enqueued message in favour of the new one.
+         */
+        DROP_OLDEST
+
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHttpLogWriter.class);
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final HttpLogWriter writer;
+    private final RingBuffer<Message> buffer;
+    private final int batchSize;
+    private final Overflow overflow;
+    private final Thread consumer;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Producers inside {@link #enqueue(Message)}, i.e. ones that may still offer a message after {@link #close()}.
+     */
+    private final AtomicInteger producers = new AtomicInteger();
+
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    public AsyncHttpLogWriter(final HttpLogWriter writer) {
+        this(writer, DEFAULT_CAPACITY, Overflow.DROP_NEWEST);
+    }
+
+    public AsyncHttpLogWriter(final HttpLogWriter writer, final int capacity, final Overflow overflow) {
+        this(writer, capacity, DEFAULT_BATCH_SIZE, overflow, AsyncHttpLogWriter::newThread);
+    }
+
+    public AsyncHttpLogWriter(final HttpLogWriter writer, final int capacity, final int batchSize,
+            final Overflow overflow, final ThreadFactory threadFactory) {
+        checkArgument(batchSize > 0, "batch size must be positive, but was %s", batchSize);
+
+        this.writer = writer;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.overflow = overflow;
+        this.consumer = threadFactory.newThread(this::consume);
+        this.consumer.start();
+    }
+
+    private static Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "logbook-async-writer");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public boolean isActive(final RawHttpRequest request) throws IOException {
+        return writer.isActive(request);
+    }
+
+    @Override
+    public void writeRequest(final Precorrelation<String> precorrelation) {
+        enqueue(target -> target.writeRequest(precorrelation));
+    }
+
+    @Override
+    public void writeResponse(final Correlation<String, String> correlation) {
+        enqueue(target -> target.writeResponse(correlation));
+    }
+
+    public long getEnqueued() {
+        return enqueued.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @VisibleForTesting
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    private void enqueue(final Message message) {
+        producers.incrementAndGet();
+
+        try {
+            if (!running) {
+                dropped.increment();
+                return;
+            }
+
+            if (offer(message)) {
+                enqueued.increment();
+
+                if (idle) {
+                    LockSupport.unpark(consumer);
+                }
+            } else {
+                dropped.increment();
+            }
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private boolean offer(final Message message) {
+        switch (overflow) {
+            case BLOCK:
+                while (!buffer.offer(message)) {
+                    if (!running) {
+                        return false;
+                    }
+                    LockSupport.unpark(consumer);
+                    LockSupport.parkNanos(this, BACKOFF_NANOS);
+                }
+                return true;
+            case DROP_OLDEST:
+                dropped.add(buffer.force(message));
+                return true;
+            default:
+                return buffer.offer(message);
+        }
+    }
+
+    private void consume() {
+        final List<Message> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            if (drain(batch) > 0) {
+                continue;
+            }
+
+            idle = true;
+            // catches messages of producers that didn't see the flag yet, later ones will unpark us
+            drain(batch);
+            LockSupport.parkNanos(this, IDLE_NANOS);
+            idle = false;
+        }
+
+        // messages that were enqueued before close(), including those of producers that raced with it
+        boolean pending;
+        do {
+            pending = producers.get() > 0;
+        } while (drain(batch) > 0 || pending);
+    }
+
+    private int drain(final List<Message> batch) {
+        @Nullable Message message;
+
+        while (batch.size() < batchSize && (message = buffer.poll()) != null) {
+            batch.add(message);
+        }
+
+        final int size = batch.size();
+
+        for (final Message each : batch) {
+            write(each);
+        }
+
+        batch.clear();
+        return size;
+    }
+
+    private void write(final Message message) {
+        try {
+            message.writeTo(writer);
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Unable to write HTTP log message", e);
+        }
+    }
+
+    /**
+     * Stops accepting new messages, writes all pending ones and waits for the consumer thread to terminate.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(consumer);
+
+        try {
+            consumer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Message {
+
+        void writeTo(final HttpLogWriter writer) throws IOException;
+
+    }
+
+}
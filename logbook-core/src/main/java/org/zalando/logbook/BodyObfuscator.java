@@ -25,8 +25,12 @@ public interface BodyObfuscator {
 
     String obfuscate(final String contentType, final String body);
     
+    /**
+     * @return an obfuscator that leaves bodies untouched, always the same instance, so that it can be recognized and
+     * bodies don't have to be decoded just to be passed on
+     */
     static BodyObfuscator none() {
-        return (contentType, body) -> body;
+        return NoBodyObfuscator.INSTANCE;
     }
 
     // TODO a special BodyObfuscator that only works for application/x-www-form-urlencoded and delegates to a key-value
@@ -0,0 +1,47 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * An {@link HttpLogWriter} that is able to consume messages as {@link CharSequence character sequences}. Messages
+ * are only valid for the duration of the call, i.e. implementations must neither retain nor modify them.
+ *
+ * @see AppendableHttpLogFormatter
+ */
+public interface CharSequenceHttpLogWriter extends HttpLogWriter {
+
+    void writeRequest(final String correlationId, final CharSequence request) throws IOException;
+
+    void writeResponse(final String correlationId, final CharSequence response) throws IOException;
+
+    @Override
+    default void writeRequest(final Precorrelation<String> precorrelation) throws IOException {
+        writeRequest(precorrelation.getId(), precorrelation.getRequest());
+    }
+
+    @Override
+    default void writeResponse(final Correlation<String, String> correlation) throws IOException {
+        writeResponse(correlation.getId(), correlation.getResponse());
+    }
+
+}
@@ -20,6 +20,8 @@ package org.zalando.logbook;
  * #L%
  */
 
+import java.time.Duration;
+
 public interface Correlation<Request, Response> {
 
     String getId();
@@ -28,4 +30,20 @@ public interface Correlation<Request, Response> {
 
     Response getResponse();
 
+    /**
+     * @return the time in nanoseconds that passed between receiving the request and receiving the response, measured
+     * by a monotonic clock, or 0 if unknown
+     */
+    default long getDurationNanos() {
+        return 0;
+    }
+
+    /**
+     * @return the time that passed between receiving the request and receiving the response
+     * @see #getDurationNanos()
+     */
+    default Duration getDuration() {
+        return Duration.ofNanos(getDurationNanos());
+    }
+
 }
@@ -0,0 +1,44 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface CorrelationIdGenerator {
+
+    String generate(final RawHttpRequest request);
+
+    static CorrelationIdGenerator uuid() {
+        return request -> UUID.randomUUID().toString();
+    }
+
+    /**
+     * A non-cryptographic, time-ordered generator that doesn't share any state between threads. Identifiers consist
+     * of 32 lowercase hex digits: the current time in milliseconds, followed by random bits.
+     *
+     * @return a generator that is considerably cheaper than {@link #uuid()} under contention
+     */
+    static CorrelationIdGenerator timeBased() {
+        return new TimeBasedCorrelationIdGenerator();
+    }
+
+}
@@ -20,76 +20,103 @@ package org.zalando.logbook;
  * #L%
  */
 
-import com.google.common.collect.Lists;
-
 import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.function.Function;
 
-import static java.util.stream.Collectors.joining;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Formats requests and responses similar to how they look on the wire. Messages are either appended to the given
+ * {@link Appendable} or assembled in a {@link StringBuilder} that is reused per thread. Headers retain their original
+ * order.
+ */
+public final class DefaultHttpLogFormatter implements AppendableHttpLogFormatter {
 
-public final class DefaultHttpLogFormatter implements HttpLogFormatter {
+    private static final String REQUEST = "Request: ";
+    private static final String RESPONSE = "Response: ";
+    private static final String PROTOCOL = "HTTP/1.1";
+    private static final String HEADER_SEPARATOR = ": ";
+    private static final String VALUE_SEPARATOR = ", ";
+    private static final String TRUNCATED = "... [truncated";
+
+    private static final ThreadLocalStringBuilder BUILDERS = new ThreadLocalStringBuilder();
 
     @Override
     public String format(final Precorrelation<HttpRequest> precorrelation) throws IOException {
-        return format(precorrelation.getRequest(), "Request", precorrelation.getId(), this::formatRequestLine);
+        final StringBuilder output = BUILDERS.acquire();
+        format(precorrelation, output);
+        return release(output);
     }
 
-    private String formatRequestLine(final HttpRequest request) {
-        return String.format("%s %s HTTP/1.1", request.getMethod(), request.getRequestUri());
+    @Override
+    public String format(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException {
+        final StringBuilder output = BUILDERS.acquire();
+        format(correlation, output);
+        return release(output);
     }
 
     @Override
-    public String format(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException {
-        return format(correlation.getResponse(), "Response", correlation.getId(), this::formatStatusLine);
+    public void format(final Precorrelation<HttpRequest> precorrelation, final Appendable output)
+            throws IOException {
+        final HttpRequest request = precorrelation.getRequest();
+
+        output.append(REQUEST).append(precorrelation.getId()).append('\n');
+        output.append(request.getMethod()).append(' ').append(request.getRequestUri().toString())
+                .append(' ').append(PROTOCOL);
+        appendHeadersAndBody(output, request);
     }
 
-    private String formatStatusLine(final HttpResponse response) {
+    @Override
+    public void format(final Correlation<HttpRequest, HttpResponse> correlation, final Appendable output)
+            throws IOException {
+        final HttpResponse response = correlation.getResponse();
+
+        // on the first line, where it can't be mistaken for a header
+        final long millis = NANOSECONDS.toMillis(correlation.getDurationNanos());
+        output.append(RESPONSE).append(correlation.getId()).append(" (").append(Long.toString(millis)).append(" ms)\n");
         // TODO we are missing the reason phrase here, e.g. "OK", but there is no complete list in the JDK alone
-        return String.format("HTTP/1.1 %d", response.getStatus());
+        output.append(PROTOCOL).append(' ').append(Integer.toString(response.getStatus()));
+        appendHeadersAndBody(output, response);
     }
 
-    private <H extends HttpMessage> String format(final H message, final String type, final String correlationId,
-            final Function<H, String> lineCreator)
+    private static void appendHeadersAndBody(final Appendable output, final HttpMessage message)
             throws IOException {
-        final List<String> lines = Lists.newArrayListWithExpectedSize(4);
 
-        lines.add(type + ": " + correlationId);
-        lines.add(lineCreator.apply(message));
-        lines.addAll(formatHeaders(message));
+        for (final Map.Entry<String, Collection<String>> header : message.getHeaders().asMap().entrySet()) {
+            output.append('\n').append(header.getKey()).append(HEADER_SEPARATOR);
+
+            final Iterator<String> values = header.getValue().iterator();
+            output.append(values.next());
+
+            while (values.hasNext()) {
+                output.append(VALUE_SEPARATOR).append(values.next());
+            }
+        }
 
         final String body = message.getBodyAsString();
-        
-        if (!body.isEmpty()) {
-            lines.add("");
-            lines.add(body);
+
+        if (message.isTruncated()) {
+            output.append("\n\n").append(body).append(TRUNCATED);
+            appendBodySize(output, message.getBodySize());
+        } else if (!body.isEmpty()) {
+            output.append("\n\n").append(body);
         }
-        
-        return join(lines);
-    } 
-
-    private List<String> formatHeaders(final HttpMessage message) {
-        return message.getHeaders().asMap().entrySet().stream()
-                .collect(toMap(Map.Entry::getKey, this::formatHeaderValues))
-                .entrySet().stream()
-                .map(this::formatHeader)
-                .collect(toList());
     }
 
-    private String formatHeaderValues(final Map.Entry<String, Collection<String>> entry) {
-        return entry.getValue().stream().collect(joining(", "));
-    }
+    private static void appendBodySize(final Appendable output, final long size) throws IOException {
+        if (size >= 0) {
+            output.append(", ").append(Long.toString(size)).append(" bytes in total");
+        }
 
-    private String formatHeader(final Map.Entry<String, String> entry) {
-        return String.format("%s: %s", entry.getKey(), entry.getValue());
+        output.append(']');
     }
 
-    private String join(final Collection<String> lines) {
-        return lines.stream().collect(joining("\n"));
+    private static String release(final StringBuilder output) {
+        final String result = output.toString();
+        BUILDERS.release(output);
+        return result;
     }
 
 }
@@ -22,44 +22,165 @@ package org.zalando.logbook;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 
 final class DefaultLogbook implements Logbook {
 
+    private final Predicate<RawHttpRequest> condition;
+    private final Sampler sampler;
     private final HttpLogFormatter formatter;
     private final HttpLogWriter writer;
     private final Obfuscation obfuscation;
-
-    DefaultLogbook(final HttpLogFormatter formatter, final HttpLogWriter writer, final Obfuscation obfuscation) {
+    private final CorrelationIdGenerator correlationIdGenerator;
+    private final LongSupplier clock;
+
+    private final Strategy strategy;
+    private final Mode mode;
+    private final Mode streaming;
+    private final ThreadLocalStringBuilder builders = new ThreadLocalStringBuilder();
+
+    DefaultLogbook(final Predicate<RawHttpRequest> condition, final Sampler sampler,
+            @Nullable final Predicate<Correlation<HttpRequest, HttpResponse>> responseCondition,
+            final HttpLogFormatter formatter, final HttpLogWriter writer, final Obfuscation obfuscation,
+            final CorrelationIdGenerator correlationIdGenerator, final LongSupplier clock) {
+        this.condition = condition;
+        this.sampler = sampler;
         this.formatter = formatter;
         this.writer = writer;
         this.obfuscation = obfuscation;
+        this.correlationIdGenerator = correlationIdGenerator;
+        this.clock = clock;
+
+        // messages don't need to become strings if both ends support it
+        if (formatter instanceof AppendableHttpLogFormatter && writer instanceof CharSequenceHttpLogWriter) {
+            final AppendableHttpLogFormatter appendableFormatter = (AppendableHttpLogFormatter) formatter;
+            final CharSequenceHttpLogWriter charSequenceWriter = (CharSequenceHttpLogWriter) writer;
+            this.strategy = precorrelation -> writeDirectly(precorrelation, appendableFormatter, charSequenceWriter);
+        } else {
+            this.strategy = this::writeStrings;
+        }
+
+        if (responseCondition == null) {
+            this.mode = this::writeImmediately;
+            this.streaming = (precorrelation, start) -> defer(precorrelation, start, correlation -> true);
+        } else {
+            this.mode = (precorrelation, start) -> defer(precorrelation, start, responseCondition);
+            this.streaming = mode;
+        }
     }
 
     @Override
     public Optional<Correlator> write(final RawHttpRequest rawHttpRequest) throws IOException {
-        if (writer.isActive(rawHttpRequest)) {
-            final String correlationId = UUID.randomUUID().toString();
+        // the body is only read once all of them agree, so rejected requests are never buffered
+        if (condition.test(rawHttpRequest) && writer.isActive(rawHttpRequest) && sampler.sample(rawHttpRequest)) {
+            final long start = clock.getAsLong();
+            final String correlationId = correlationIdGenerator.generate(rawHttpRequest);
             final HttpRequest request = obfuscation.obfuscate(rawHttpRequest.withBody());
-
             final Precorrelation<HttpRequest> precorrelation = new SimplePrecorrelation<>(correlationId, request);
-            final String format = formatter.format(precorrelation);
-            writer.writeRequest(new SimplePrecorrelation<>(correlationId, format));
-
-            return Optional.of(rawHttpResponse -> {
-                final HttpResponse response = obfuscation.obfuscate(rawHttpResponse.withBody());
-                final Correlation<HttpRequest, HttpResponse> correlation =
-                        new SimpleCorrelation<>(correlationId, request, response);
-                final String message = formatter.format(correlation);
-                writer.writeResponse(new SimpleCorrelation<>(correlationId, format, message));
-            });
+            final Mode mode = rawHttpRequest.isStreaming() ? streaming : this.mode;
+
+            return Optional.of(mode.correlate(precorrelation, start));
         } else {
             return Optional.empty();
         }
     }
 
+    private Correlator writeImmediately(final Precorrelation<HttpRequest> precorrelation, final long start)
+            throws IOException {
+        final ResponseWriter responseWriter = strategy.write(precorrelation);
+        return rawHttpResponse -> responseWriter.write(correlate(precorrelation, start, rawHttpResponse));
+    }
+
+    /**
+     * Holds back the request until the response is known. Neither of them is formatted, let alone written, unless the
+     * given condition matches. The condition only gets to see a lazy response, so that the body of a response that
+     * isn't logged is never read, unless the condition asks for it.
+     */
+    private Correlator defer(final Precorrelation<HttpRequest> precorrelation, final long start,
+            final Predicate<Correlation<HttpRequest, HttpResponse>> responseCondition) {
+
+        return rawHttpResponse -> {
+            final long duration = clock.getAsLong() - start;
+            final LazyHttpResponse response = new LazyHttpResponse(rawHttpResponse, obfuscation);
+
+            if (responseCondition.test(correlate(precorrelation, response, duration))) {
+                strategy.write(precorrelation).write(correlate(precorrelation, response.withBody(), duration));
+            }
+        };
+    }
+
+    private Correlation<HttpRequest, HttpResponse> correlate(final Precorrelation<HttpRequest> precorrelation,
+            final long start, final RawHttpResponse rawHttpResponse) throws IOException {
+        // before reading the body, which might still be in transit
+        final long duration = clock.getAsLong() - start;
+        return correlate(precorrelation, obfuscation.obfuscate(rawHttpResponse.withBody()), duration);
+    }
+
+    private static Correlation<HttpRequest, HttpResponse> correlate(final Precorrelation<HttpRequest> precorrelation,
+            final HttpResponse response, final long duration) {
+        return new SimpleCorrelation<>(precorrelation.getId(), precorrelation.getRequest(), response, duration);
+    }
+
+    private ResponseWriter writeStrings(final Precorrelation<HttpRequest> precorrelation) throws IOException {
+        final String correlationId = precorrelation.getId();
+        final String format = formatter.format(precorrelation);
+        writer.writeRequest(new SimplePrecorrelation<>(correlationId, format));
+
+        return correlation -> {
+            final String message = formatter.format(correlation);
+            writer.writeResponse(new SimpleCorrelation<>(correlationId, format, message,
+                    correlation.getDurationNanos()));
+        };
+    }
+
+    private ResponseWriter writeDirectly(final Precorrelation<HttpRequest> precorrelation,
+            final AppendableHttpLogFormatter formatter, final CharSequenceHttpLogWriter writer) throws IOException {
+        final String correlationId = precorrelation.getId();
+
+        final StringBuilder request = builders.acquire();
+        formatter.format(precorrelation, request);
+        writer.writeRequest(correlationId, request);
+        builders.release(request);
+
+        return correlation -> {
+            final StringBuilder message = builders.acquire();
+            formatter.format(correlation, message);
+            writer.writeResponse(correlationId, message);
+            builders.release(message);
+        };
+    }
+
+    /**
+     * Decides when requests are being written.
+     */
+    @FunctionalInterface
+    private interface Mode {
+
+        Correlator correlate(final Precorrelation<HttpRequest> precorrelation, final long start) throws IOException;
+
+    }
+
+    /**
+     * Decides how messages are being formatted and written.
+     */
+    @FunctionalInterface
+    private interface Strategy {
+
+        ResponseWriter write(final Precorrelation<HttpRequest> precorrelation) throws IOException;
+
+    }
+
+    @FunctionalInterface
+    private interface ResponseWriter {
+
+        void write(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException;
+
+    }
+
     @VisibleForTesting
     static class SimplePrecorrelation<I> implements Precorrelation<I> {
 
@@ -89,11 +210,17 @@ final class DefaultLogbook implements Logbook {
         private final String id;
         private final I request;
         private final O response;
+        private final long duration;
 
         public SimpleCorrelation(final String id, final I request, final O response) {
+            this(id, request, response, 0);
+        }
+
+        public SimpleCorrelation(final String id, final I request, final O response, final long duration) {
             this.id = id;
             this.request = request;
             this.response = response;
+            this.duration = duration;
         }
 
         @Override
@@ -111,6 +238,11 @@ final class DefaultLogbook implements Logbook {
             return response;
         }
 
+        @Override
+        public long getDurationNanos() {
+            return duration;
+        }
+
     }
 
 }
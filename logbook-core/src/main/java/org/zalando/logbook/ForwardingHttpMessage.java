@@ -51,6 +51,16 @@ public abstract class ForwardingHttpMessage extends ForwardingObject implements
         return delegate().getBody();
     }
 
+    @Override
+    public boolean isTruncated() {
+        return delegate().isTruncated();
+    }
+
+    @Override
+    public long getBodySize() throws IOException {
+        return delegate().getBodySize();
+    }
+
     @Override
     public String getBodyAsString() throws IOException {
         return delegate().getBodyAsString();
@@ -35,6 +35,11 @@ public abstract class ForwardingRawHttpRequest extends ForwardingObject implemen
         return delegate().withBody();
     }
 
+    @Override
+    public boolean isStreaming() {
+        return delegate().isStreaming();
+    }
+
     @Override
     public String getRemote() {
         return delegate().getRemote();
@@ -35,6 +35,24 @@ public interface HttpMessage {
 
     byte[] getBody() throws IOException;
 
+    /**
+     * Integrations may limit how much of a body they capture, in which case {@link #getBody()} only contains its
+     * beginning.
+     *
+     * @return whether the body was cut short
+     */
+    default boolean isTruncated() {
+        return false;
+    }
+
+    /**
+     * @return the size of the complete body in bytes, or -1 if it's unknown
+     * @throws IOException if the body can't be read
+     */
+    default long getBodySize() throws IOException {
+        return getBody().length;
+    }
+
     default String getBodyAsString() throws IOException {
         return new String(getBody(), getCharset());
     }
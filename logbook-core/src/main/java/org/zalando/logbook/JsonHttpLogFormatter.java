@@ -20,108 +20,389 @@ package org.zalando.logbook;
  * #L%
  */
 
-import com.fasterxml.jackson.annotation.JsonRawValue;
-import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.CharMatcher;
-import com.google.common.collect.ImmutableMap;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.net.MediaType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
-import java.util.function.Predicate;
 
-public final class JsonHttpLogFormatter implements HttpLogFormatter {
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Formats requests and responses as single line JSON objects. Fields are written directly to a {@link JsonGenerator}
+ * that is reused per thread, rather than being collected into an intermediate map first.
+ */
+public final class JsonHttpLogFormatter implements AppendableHttpLogFormatter {
+
+    /**
+     * Defines how bodies with a JSON content type are embedded into the log message.
+     */
+    public enum Embedding {
+
+        /**
+         * Parses the raw body once, compacting it on the fly. Valid JSON is embedded as-is, anything else is
+         * embedded as a string.
+         */
+        VALIDATE,
+
+        /**
+         * Trusts the declared content type and only strips whitespace outside of strings, without any validation.
+         * Malformed bodies will produce malformed log messages. Bodies that don't even start like JSON, e.g.
+         * placeholders for bodies that weren't captured, are embedded as a string.
+         */
+        TRUST
+
+    }
 
     private static final MediaType APPLICATION_JSON = MediaType.create("application", "json");
-    private static final CharMatcher PRETTY_PRINT = CharMatcher.anyOf("\n\t");
     private static final Logger LOG = LoggerFactory.getLogger(JsonHttpLogFormatter.class);
 
+    // buffers that grew beyond this size (in chars) are not retained, i.e. huge bodies don't pin memory forever
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
     private final ObjectMapper mapper;
+    private final Embedding embedding;
+    private final ThreadLocal<State> states = new ThreadLocal<>();
 
     public JsonHttpLogFormatter() {
         this(new ObjectMapper());
     }
 
     public JsonHttpLogFormatter(final ObjectMapper mapper) {
+        this(mapper, Embedding.VALIDATE);
+    }
+
+    public JsonHttpLogFormatter(final ObjectMapper mapper, final Embedding embedding) {
         this.mapper = mapper;
+        this.embedding = embedding;
     }
 
-    @Override
-    public String format(final Precorrelation<HttpRequest> precorrelation) throws IOException {
-        final String correlationId = precorrelation.getId();
-        final HttpRequest request = precorrelation.getRequest();
+    private State getState() throws IOException {
+        @Nullable final State current = states.get();
 
-        final ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder();
+        if (current == null) {
+            final State state = new State();
+            final JsonGenerator generator = mapper.getFactory().createGenerator(state.output);
+            generator.setRootValueSeparator(null);
 
-        builder.put("type", "request");
-        builder.put("correlation", correlationId);
-        builder.put("remote", request.getRemote());
-        builder.put("method", request.getMethod());
-        builder.put("uri", request.getRequestUri());
+            if (mapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                generator.setPrettyPrinter(new DefaultPrettyPrinter().withRootSeparator((SerializableString) null));
+            }
 
-        addUnless(builder, "headers", request.getHeaders().asMap(), Map::isEmpty);
-        addBody(request, builder);
+            state.generator = generator;
+            states.set(state);
+            return state;
+        }
 
-        final ImmutableMap<String, Object> content = builder.build();
+        return current;
+    }
 
-        return mapper.writeValueAsString(content);
+    @Override
+    public String format(final Precorrelation<HttpRequest> precorrelation) throws IOException {
+        final State state = write(precorrelation);
+        final String result = state.output.toString();
+        recycle(state);
+        return result;
     }
 
     @Override
     public String format(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException {
+        final State state = write(correlation);
+        final String result = state.output.toString();
+        recycle(state);
+        return result;
+    }
+
+    @Override
+    public void format(final Precorrelation<HttpRequest> precorrelation, final Appendable output)
+            throws IOException {
+        final State state = getState();
+        state.output.redirect(output);
+        recycle(write(state, precorrelation));
+    }
+
+    @Override
+    public void format(final Correlation<HttpRequest, HttpResponse> correlation, final Appendable output)
+            throws IOException {
+        final State state = getState();
+        state.output.redirect(output);
+        recycle(write(state, correlation));
+    }
+
+    private State write(final Precorrelation<HttpRequest> precorrelation) throws IOException {
+        return write(getState(), precorrelation);
+    }
+
+    private State write(final State state, final Precorrelation<HttpRequest> precorrelation) throws IOException {
+        final String correlationId = precorrelation.getId();
+        final HttpRequest request = precorrelation.getRequest();
+        final JsonGenerator generator = state.generator;
+
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("type", "request");
+            generator.writeStringField("correlation", correlationId);
+            generator.writeStringField("remote", request.getRemote());
+            generator.writeStringField("method", request.getMethod());
+            generator.writeStringField("uri", request.getRequestUri().toString());
+            writeHeaders(generator, request.getHeaders().asMap());
+            writeBody(state, request);
+            generator.writeEndObject();
+            generator.flush();
+
+            return state;
+        } catch (final IOException | RuntimeException e) {
+            // the generator might be stuck in the middle of an object, start from scratch next time
+            states.remove();
+            throw e;
+        }
+    }
+
+    private State write(final Correlation<HttpRequest, HttpResponse> correlation) throws IOException {
+        return write(getState(), correlation);
+    }
+
+    private State write(final State state, final Correlation<HttpRequest, HttpResponse> correlation)
+            throws IOException {
         final String correlationId = correlation.getId();
         final HttpResponse response = correlation.getResponse();
+        final JsonGenerator generator = state.generator;
 
-        final ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder();
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("type", "response");
+            generator.writeStringField("correlation", correlationId);
+            generator.writeNumberField("duration", NANOSECONDS.toMillis(correlation.getDurationNanos()));
+            generator.writeNumberField("status", response.getStatus());
+            writeHeaders(generator, response.getHeaders().asMap());
+            writeBody(state, response);
+            generator.writeEndObject();
+            generator.flush();
+
+            return state;
+        } catch (final IOException | RuntimeException e) {
+            states.remove();
+            throw e;
+        }
+    }
 
-        builder.put("type", "response");
-        builder.put("correlation", correlationId);
-        builder.put("status", response.getStatus());
-        addUnless(builder, "headers", response.getHeaders().asMap(), Map::isEmpty);
-        addBody(response, builder);
+    private void recycle(final State state) {
+        if (state.output.capacity() > MAX_RETAINED_CAPACITY || state.scratch.capacity() > MAX_RETAINED_CAPACITY) {
+            states.remove();
+        } else {
+            state.output.reset();
+        }
+    }
 
-        final ImmutableMap<String, Object> content = builder.build();
+    private static void writeHeaders(final JsonGenerator generator, final Map<String, Collection<String>> headers)
+            throws IOException {
 
-        return mapper.writeValueAsString(content);
-    }
+        if (headers.isEmpty()) {
+            return;
+        }
 
-    private static <T> void addUnless(final ImmutableMap.Builder<String, Object> target, final String key,
-                                      final T element, final Predicate<T> predicate) {
+        generator.writeObjectFieldStart("headers");
+
+        for (final Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+            generator.writeArrayFieldStart(header.getKey());
+
+            for (final String value : header.getValue()) {
+                generator.writeString(value);
+            }
 
-        if (!predicate.test(element)) {
-            target.put(key, element);
+            generator.writeEndArray();
         }
+
+        generator.writeEndObject();
     }
 
-    private void addBody(final HttpMessage request, final ImmutableMap.Builder<String, Object> builder) throws IOException {
-        final String body = request.getBodyAsString();
+    private void writeBody(final State state, final HttpMessage message) throws IOException {
+        final JsonGenerator generator = state.generator;
+
+        if (message.isTruncated()) {
+            // a partial JSON body can't be embedded, no matter whether it's trusted or not
+            generator.writeStringField("body", message.getBodyAsString());
+            generator.writeBooleanField("truncated", true);
 
-        if (isJson(request.getContentType())) {
-            builder.put("body", tryParseBodyAsJson(body));
+            final long size = message.getBodySize();
+
+            if (size >= 0) {
+                generator.writeNumberField("bodySize", size);
+            }
+        } else if (isJson(message.getContentType())) {
+            if (embedding == Embedding.TRUST) {
+                writeTrustedJsonBody(state.generator, message.getBodyAsString());
+            } else {
+                writeJsonBody(state, message);
+            }
         } else {
-            addUnless(builder, "body", body, String::isEmpty);
+            final String body = message.getBodyAsString();
+
+            if (!body.isEmpty()) {
+                generator.writeStringField("body", body);
+            }
         }
     }
 
-    private Object tryParseBodyAsJson(final String body) {
-        if (body.isEmpty()) {
-            return JsonBody.EMPTY;
+    private void writeJsonBody(final State state, final HttpMessage message) throws IOException {
+        final byte[] body = message.getBody();
+
+        if (body.length == 0) {
+            state.generator.writeStringField("body", "");
+            return;
         }
 
+        final Buffer scratch = state.scratch;
+        final boolean valid;
+
         try {
-            return new JsonBody(compactJson(body));
+            valid = compact(body, scratch);
         } catch (final IOException e) {
             LOG.trace("Unable to parse body as JSON", e);
+            writeInvalidJsonBody(state, message);
+            return;
+        }
+
+        if (valid) {
+            state.generator.writeFieldName("body");
+            state.generator.writeRawValue(scratch.chars, 0, scratch.size);
+            scratch.reset();
+        } else {
+            writeInvalidJsonBody(state, message);
+        }
+    }
+
+    private void writeInvalidJsonBody(final State state, final HttpMessage message) throws IOException {
+        state.scratch.reset();
+        state.generator.writeStringField("body", message.getBodyAsString());
+    }
+
+    /**
+     * Parses the given body (JSON is always Unicode, the encoding is auto-detected) and re-generates it into the
+     * given buffer, token by token and without any whitespace. Numbers are copied textually to preserve their
+     * precision.
+     *
+     * @return true if the body consists of exactly one JSON value
+     */
+    private boolean compact(final byte[] body, final Buffer target) throws IOException {
+        final JsonFactory factory = mapper.getFactory();
+        final JsonParser parser = factory.createParser(body);
+        final JsonGenerator generator = factory.createGenerator(target);
+
+        // see http://stackoverflow.com/questions/17354150/8-branches-for-try-with-resources-jacoco-coverage-possible
+        //noinspection TryFinallyCanBeTryWithResources - jacoco can't handle try-with correctly
+        try {
+            if (parser.nextToken() == null) {
+                return false;
+            }
+
+            while (true) {
+                copyCurrentToken(parser, generator);
+
+                if (parser.getParsingContext().inRoot()) {
+                    break;
+                }
+
+                parser.nextToken();
+            }
+
+            return parser.nextToken() == null;
+        } finally {
+            generator.close();
+            parser.close();
         }
+    }
 
-        return body;
+    private static void copyCurrentToken(final JsonParser parser, final JsonGenerator generator) throws IOException {
+        final JsonToken token = parser.getCurrentToken();
+
+        if (token == JsonToken.VALUE_STRING) {
+            generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } else if (token.isNumeric()) {
+            generator.writeNumber(parser.getText());
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    /**
+     * Writes the body straight from its characters, one run between whitespace at a time.
+     */
+    private static void writeTrustedJsonBody(final JsonGenerator generator, final String body) throws IOException {
+        final int length = body.length();
+        int start = 0;
+
+        while (start < length && isWhitespace(body.charAt(start))) {
+            start++;
+        }
+
+        if (start == length || !isValueStart(body.charAt(start))) {
+            generator.writeStringField("body", body);
+            return;
+        }
+
+        generator.writeFieldName("body");
+
+        boolean first = true;
+        boolean string = false;
+        boolean escaped = false;
+
+        for (int index = start; index < length; index++) {
+            final char c = body.charAt(index);
+
+            if (string) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    string = false;
+                }
+            } else if (isWhitespace(c)) {
+                if (start < index) {
+                    writeRaw(generator, body, start, index, first);
+                    first = false;
+                }
+                start = index + 1;
+            } else {
+                string = c == '"';
+            }
+        }
+
+        if (start < length) {
+            writeRaw(generator, body, start, length, first);
+        }
+    }
+
+    private static void writeRaw(final JsonGenerator generator, final String body, final int start, final int end,
+            final boolean first) throws IOException {
+        if (first) {
+            generator.writeRawValue(body, start, end - start);
+        } else {
+            generator.writeRaw(body, start, end - start);
+        }
+    }
+
+    private static boolean isValueStart(final char c) {
+        return c == '{' || c == '[' || c == '"' || c == '-' || c >= '0' && c <= '9' || c == 't' || c == 'f' || c == 'n';
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
     }
 
     private boolean isJson(final String contentType) {
@@ -139,49 +420,78 @@ public final class JsonHttpLogFormatter implements HttpLogFormatter {
         return isJson || isApplication && isCustomJson;
     }
 
-    private String compactJson(final String json) throws IOException {
-        if (isAlreadyCompacted(json)) {
-            return json;
-        }
+    private static final class State {
 
-        final StringWriter output = new StringWriter();
-        final JsonFactory factory = mapper.getFactory();
-        final JsonParser parser = factory.createParser(json);
+        private final Buffer output = new Buffer(1024);
+        private final Buffer scratch = new Buffer(1024);
+        private JsonGenerator generator;
 
-        final JsonGenerator generator = factory.createGenerator(output);
+    }
 
-        // see http://stackoverflow.com/questions/17354150/8-branches-for-try-with-resources-jacoco-coverage-possible
-        //noinspection TryFinallyCanBeTryWithResources - jacoco can't handle try-with correctly
-        try {
-            while (parser.nextToken() != null) {
-                generator.copyCurrentEvent(parser);
-            }
-        } finally {
-            generator.close();
+    /**
+     * A growable, unsynchronized char buffer that exposes its backing array. It can be redirected into an
+     * {@link Appendable} until its next {@link #reset() reset}, in which case nothing is buffered at all.
+     */
+    private static final class Buffer extends Writer {
+
+        private char[] chars;
+        private int size;
+
+        /**
+         * Null unless somebody wants to receive everything written directly.
+         */
+        @Nullable
+        private Appendable target;
+
+        private Buffer(final int capacity) {
+            this.chars = new char[capacity];
         }
 
-        return output.toString();
-    }
+        private int capacity() {
+            return chars.length;
+        }
 
-    // this wouldn't catch spaces in json, but that's ok for our use case here
-    private boolean isAlreadyCompacted(final String json) {
-        return PRETTY_PRINT.matchesNoneOf(json);
-    }
+        private char[] ensureCapacity(final int capacity) {
+            if (capacity > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+            }
+            return chars;
+        }
 
-    private static final class JsonBody {
+        private void redirect(final Appendable target) {
+            this.target = target;
+        }
 
-        static final String EMPTY = "";
+        private void reset() {
+            size = 0;
+            target = null;
+        }
 
-        private final String json;
+        @Override
+        public void write(final char[] source, final int offset, final int length) throws IOException {
+            if (target == null) {
+                System.arraycopy(source, offset, ensureCapacity(size + length), size, length);
+                size += length;
+            } else if (target instanceof StringBuilder) {
+                ((StringBuilder) target).append(source, offset, length);
+            } else {
+                target.append(CharBuffer.wrap(source, offset, length));
+            }
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
 
-        private JsonBody(final String json) {
-            this.json = json;
+        @Override
+        public void close() {
+            // nothing to close
         }
 
-        @JsonRawValue
-        @JsonValue
-        public String getJson() {
-            return json;
+        @Override
+        public String toString() {
+            return new String(chars, 0, size);
         }
 
     }
@@ -0,0 +1,122 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.Multimap;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * A response whose body is only read once somebody asks for it. Status and headers are taken from the raw response
+ * right away, if it provides them, which is enough to decide whether a response is worth logging at all.
+ */
+final class LazyHttpResponse implements HttpResponse {
+
+    private final RawHttpResponse raw;
+    private final Obfuscation obfuscation;
+
+    /**
+     * Null unless the raw response provides status and headers without its body.
+     */
+    @Nullable
+    private final HttpResponse head;
+
+    /**
+     * Null until somebody asks for the body.
+     */
+    @Nullable
+    private HttpResponse response;
+
+    LazyHttpResponse(final RawHttpResponse raw, final Obfuscation obfuscation) {
+        this.raw = raw;
+        this.obfuscation = obfuscation;
+        this.head = raw instanceof HttpResponse ? obfuscation.obfuscate((HttpResponse) raw) : null;
+    }
+
+    /**
+     * @return the obfuscated response, including its body, which is read on the first call
+     */
+    HttpResponse withBody() throws IOException {
+        if (response == null) {
+            this.response = obfuscation.obfuscate(raw.withBody());
+        }
+        return response;
+    }
+
+    private HttpResponse head() {
+        if (head == null) {
+            return unchecked();
+        }
+        return head;
+    }
+
+    private HttpResponse unchecked() {
+        try {
+            return withBody();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int getStatus() {
+        return head().getStatus();
+    }
+
+    @Override
+    public Multimap<String, String> getHeaders() {
+        return head().getHeaders();
+    }
+
+    @Override
+    public String getContentType() {
+        return head().getContentType();
+    }
+
+    @Override
+    public Charset getCharset() {
+        return head().getCharset();
+    }
+
+    @Override
+    public byte[] getBody() throws IOException {
+        return withBody().getBody();
+    }
+
+    @Override
+    public boolean isTruncated() {
+        return unchecked().isTruncated();
+    }
+
+    @Override
+    public long getBodySize() throws IOException {
+        return withBody().getBodySize();
+    }
+
+    @Override
+    public String getBodyAsString() throws IOException {
+        return withBody().getBodyAsString();
+    }
+
+}
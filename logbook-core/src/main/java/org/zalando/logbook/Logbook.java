@@ -23,6 +23,7 @@ package org.zalando.logbook;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
@@ -34,20 +35,36 @@ public interface Logbook {
         return builder().build();
     }
 
+    /**
+     * @param condition decides whether a request should be logged at all, based on its method, URI, headers and remote
+     *                  address; it runs before the body is read, so rejected requests are never buffered
+     * @param sampler picks the requests to log out of the ones that pass the condition
+     * @param responseCondition if present, requests are held back until their response is known, and neither of them
+     *                          is formatted or written unless it matches, e.g. for slow or failed exchanges
+     */
     @lombok.Builder(builderClassName = "Builder")
-    static Logbook create(@Nullable final HttpLogFormatter formatter,
+    static Logbook create(@Nullable final Predicate<RawHttpRequest> condition,
+            @Nullable final Sampler sampler,
+            @Nullable final Predicate<Correlation<HttpRequest, HttpResponse>> responseCondition,
+            @Nullable final HttpLogFormatter formatter,
             @Nullable final HttpLogWriter writer,
             @Nullable final Obfuscator headerObfuscator,
             @Nullable final Obfuscator parameterObfuscator,
-            @Nullable final BodyObfuscator bodyObfuscator) {
+            @Nullable final BodyObfuscator bodyObfuscator,
+            @Nullable final CorrelationIdGenerator correlationIdGenerator) {
 
         return new DefaultLogbook(
+                firstNonNull(condition, request -> true),
+                firstNonNull(sampler, Sampler.always()),
+                responseCondition,
                 firstNonNull(formatter, new DefaultHttpLogFormatter()),
                 firstNonNull(writer, new DefaultHttpLogWriter()),
                 new Obfuscation(
                         firstNonNull(headerObfuscator, Obfuscator.none()),
                         firstNonNull(parameterObfuscator, Obfuscator.none()),
-                        firstNonNull(bodyObfuscator, BodyObfuscator.none())));
+                        firstNonNull(bodyObfuscator, BodyObfuscator.none())),
+                firstNonNull(correlationIdGenerator, CorrelationIdGenerator.uuid()),
+                System::nanoTime);
     }
 
 
@@ -86,7 +86,8 @@ final class ObfuscatedHttpRequest extends ForwardingHttpRequest {
 
     @Override
     public byte[] getBody() throws IOException {
-        return getBodyAsString().getBytes(getCharset());
+        // only decoded and encoded again if there is anything to obfuscate
+        return bodyObfuscator == BodyObfuscator.none() ? request.getBody() : getBodyAsString().getBytes(getCharset());
     }
 
     @Override
@@ -55,7 +55,8 @@ final class ObfuscatedHttpResponse extends ForwardingHttpResponse {
 
     @Override
     public byte[] getBody() throws IOException {
-        return getBodyAsString().getBytes(getCharset());
+        // only decoded and encoded again if there is anything to obfuscate
+        return bodyObfuscator == BodyObfuscator.none() ? response.getBody() : getBodyAsString().getBytes(getCharset());
     }
 
     @Override
@@ -0,0 +1,85 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: instead of counting tokens, it keeps track
+ * of the point in time at which the bucket would be full again.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Generic_cell_rate_algorithm">Generic cell rate algorithm</a>
+ */
+class RateLimitingSampler implements Sampler {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long interval;
+    private final long capacity;
+    private final LongSupplier clock;
+    private final AtomicLong full;
+
+    RateLimitingSampler(final int permitsPerSecond, final LongSupplier clock) {
+        checkArgument(permitsPerSecond > 0, "permits per second must be positive, but was %s", permitsPerSecond);
+        checkArgument(permitsPerSecond <= NANOS_PER_SECOND,
+                "permits per second must not exceed %s, but was %s", NANOS_PER_SECOND, permitsPerSecond);
+
+        this.interval = NANOS_PER_SECOND / permitsPerSecond;
+        this.capacity = interval * permitsPerSecond;
+        this.clock = clock;
+        this.full = new AtomicLong(clock.getAsLong());
+    }
+
+    @Override
+    public boolean sample(final RawHttpRequest request) {
+        final long now = clock.getAsLong();
+
+        // rejections, i.e. the common case under load, don't write to the shared state
+        if (!admits(readFull(), now)) {
+            return false;
+        }
+
+        final long previous = full.getAndUpdate(current -> admits(current, now) ? take(current, now) : current);
+        return admits(previous, now);
+    }
+
+    private boolean admits(final long full, final long now) {
+        return take(full, now) - now <= capacity;
+    }
+
+    private long take(final long full, final long now) {
+        // differences rather than comparisons, since nano times may overflow
+        return (full - now > 0 ? full : now) + interval;
+    }
+
+    // only overridden by tests, to simulate interference of other threads
+    @VisibleForTesting
+    long readFull() {
+        return full.get();
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ThreadLocalRandom;
+
+final class RatioSampler implements Sampler {
+
+    private final double ratio;
+
+    RatioSampler(final double ratio) {
+        this.ratio = ratio;
+    }
+
+    @Override
+    public boolean sample(final RawHttpRequest request) {
+        return ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+}
@@ -26,4 +26,14 @@ public interface RawHttpRequest extends BaseHttpRequest {
 
     HttpRequest withBody() throws IOException;
 
+    /**
+     * Integrations may capture the body while the application reads it, rather than reading it upfront. The body of
+     * such a request is only complete once the response is there, which is why it will be written alongside it.
+     *
+     * @return whether {@link #withBody()} returns a request whose body is still being read
+     */
+    default boolean isStreaming() {
+        return false;
+    }
+
 }
@@ -0,0 +1,150 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded, lock-free multi-producer/multi-consumer queue based on per-slot sequence numbers.
+ *
+ * @see <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue">Bounded MPMC queue</a>
+ */
+class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    RingBuffer(final int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive, but was %s", capacity);
+
+        final int size = ceilingPowerOfTwo(capacity);
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+
+        for (int index = 0; index < size; index++) {
+            sequences.set(index, index);
+        }
+    }
+
+    private static int ceilingPowerOfTwo(final int value) {
+        checkArgument(value <= 1 << 30, "capacity must not exceed 2^30, but was %s", value);
+        // sequence numbers can't tell a full from an empty slot with less than two slots
+        return value <= 2 ? 2 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    boolean offer(final E element) {
+        while (true) {
+            final long position = readTail();
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+
+            if (difference < 0) {
+                return false;
+            }
+
+            // a positive difference or a failed update means that another producer got ahead of us
+            if (difference == 0 && updateTail(position, position + 1)) {
+                elements.lazySet(index, element);
+                // publishes the element, ordered after the element store
+                sequences.lazySet(index, position + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Offers the given element, evicting the oldest elements until there is enough space.
+     *
+     * @param element the element to add
+     * @return the number of evicted elements
+     */
+    int force(final E element) {
+        int evicted = 0;
+
+        while (!offer(element)) {
+            // a concurrent consumer might have taken the element already
+            if (poll() != null) {
+                evicted++;
+            }
+        }
+
+        return evicted;
+    }
+
+    @Nullable
+    E poll() {
+        while (true) {
+            final long position = readHead();
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - (position + 1);
+
+            if (difference < 0) {
+                return null;
+            }
+
+            // a positive difference or a failed update means that another consumer got ahead of us
+            if (difference == 0 && updateHead(position, position + 1)) {
+                final E element = elements.get(index);
+                elements.lazySet(index, null);
+                sequences.lazySet(index, position + mask + 1);
+                return element;
+            }
+        }
+    }
+
+    // the following are only overridden by tests, to simulate interference of other threads
+
+    @VisibleForTesting
+    long readHead() {
+        return head.get();
+    }
+
+    @VisibleForTesting
+    boolean updateHead(final long expect, final long update) {
+        return head.compareAndSet(expect, update);
+    }
+
+    @VisibleForTesting
+    long readTail() {
+        return tail.get();
+    }
+
+    @VisibleForTesting
+    boolean updateTail(final long expect, final long update) {
+        return tail.compareAndSet(expect, update);
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+final class RouteSampler implements Sampler {
+
+    private final ConcurrentMap<String, Sampler> samplers = new ConcurrentHashMap<>();
+    private final Function<RawHttpRequest, String> route;
+    private final Function<String, Sampler> factory;
+
+    RouteSampler(final Function<RawHttpRequest, String> route, final Supplier<Sampler> factory) {
+        this.route = route;
+        this.factory = key -> factory.get();
+    }
+
+    @Override
+    public boolean sample(final RawHttpRequest request) {
+        final String key = route.apply(request);
+        // computeIfAbsent may lock even if the key is present
+        @Nullable final Sampler existing = samplers.get(key);
+        final Sampler sampler = existing == null ? samplers.computeIfAbsent(key, factory) : existing;
+        return sampler.sample(request);
+    }
+
+}
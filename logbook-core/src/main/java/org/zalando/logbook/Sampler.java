@@ -0,0 +1,70 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides which of the requests, that would otherwise be logged, are actually being logged. Samplers are consulted
+ * before the body is read, so requests that are sampled out are never buffered.
+ */
+@FunctionalInterface
+public interface Sampler {
+
+    boolean sample(final RawHttpRequest request);
+
+    static Sampler always() {
+        return request -> true;
+    }
+
+    /**
+     * @param ratio the fraction of requests to log, between 0 and 1
+     * @return a sampler that logs a random subset of the given size
+     */
+    static Sampler ratio(final double ratio) {
+        checkArgument(ratio >= 0 && ratio <= 1, "ratio must be between 0 and 1, but was %s", ratio);
+        return new RatioSampler(ratio);
+    }
+
+    /**
+     * @param permitsPerSecond the maximum number of requests to log per second
+     * @return a token bucket based sampler that allows bursts of up to one second worth of requests
+     */
+    static Sampler rate(final int permitsPerSecond) {
+        return new RateLimitingSampler(permitsPerSecond, System::nanoTime);
+    }
+
+    /**
+     * Limits the rate of each route independently, so that frequently requested routes don't starve rarely requested
+     * ones.
+     *
+     * @param route extracts the route of a request, e.g. method and path template; must only produce a bounded number
+     *              of distinct values
+     * @param permitsPerSecond the maximum number of requests to log per route and second
+     * @return a sampler that keeps one token bucket per route
+     */
+    static Sampler perRoute(final Function<RawHttpRequest, String> route, final int permitsPerSecond) {
+        return new RouteSampler(route, () -> new RateLimitingSampler(permitsPerSecond, System::nanoTime));
+    }
+
+}
@@ -20,19 +20,65 @@ package org.zalando.logbook;
  * #L%
  */
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 
-public final class StreamHttpLogWriter implements HttpLogWriter {
+public final class StreamHttpLogWriter implements CharSequenceHttpLogWriter {
+
+    private static final int BUFFER_SIZE = 8192;
 
     private final PrintStream stream;
 
+    /**
+     * Null if the stream should encode character sequences itself.
+     */
+    @Nullable
+    private final Charset charset;
+
+    @Nullable
+    private final byte[] lineSeparator;
+
+    private final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(this::createEncoder);
+
     public StreamHttpLogWriter() {
         this(System.out);
     }
 
+    /**
+     * Character sequences are written through the given stream and therefore use its encoding.
+     *
+     * @param stream the target stream
+     */
     public StreamHttpLogWriter(final PrintStream stream) {
         this.stream = stream;
+        this.charset = null;
+        this.lineSeparator = null;
+    }
+
+    /**
+     * Character sequences are encoded into the given stream directly, without turning them into strings first.
+     *
+     * @param stream the target stream
+     * @param charset the charset used to encode {@link CharSequence character sequences}, should be the same as the
+     *                one of the given stream
+     */
+    public StreamHttpLogWriter(final PrintStream stream, final Charset charset) {
+        this.stream = stream;
+        this.charset = charset;
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+    }
+
+    private Encoder createEncoder() {
+        return new Encoder(charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
     }
 
     @Override
@@ -45,4 +91,63 @@ public final class StreamHttpLogWriter implements HttpLogWriter {
         stream.println(correlation.getResponse());
     }
 
+    @Override
+    public void writeRequest(final String correlationId, final CharSequence request) throws IOException {
+        write(request);
+    }
+
+    @Override
+    public void writeResponse(final String correlationId, final CharSequence response) throws IOException {
+        write(response);
+    }
+
+    /**
+     * Encodes the given message chunk-wise into a reused buffer, unless the stream should encode it itself. Holds the
+     * lock of the stream throughout, just like {@link PrintStream#println(String)} does, so that concurrent messages
+     * don't interleave.
+     */
+    private void write(final CharSequence message) {
+        if (charset == null) {
+            stream.println(message);
+            return;
+        }
+
+        final Encoder encoder = encoders.get();
+        final CharsetEncoder delegate = encoder.delegate;
+        final ByteBuffer buffer = encoder.buffer;
+        final CharBuffer input = CharBuffer.wrap(message);
+
+        delegate.reset();
+
+        synchronized (stream) {
+            CoderResult result;
+
+            do {
+                result = delegate.encode(input, buffer, true);
+                drain(buffer);
+            } while (result.isOverflow());
+
+            delegate.flush(buffer);
+            drain(buffer);
+
+            stream.write(lineSeparator, 0, lineSeparator.length);
+        }
+    }
+
+    private void drain(final ByteBuffer buffer) {
+        stream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    private static final class Encoder {
+
+        private final CharsetEncoder delegate;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private Encoder(final CharsetEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+    }
+
 }
@@ -0,0 +1,48 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Hands out one {@link StringBuilder} per thread. Builders that grew beyond a certain size are not retained, i.e.
+ * huge messages don't pin memory forever.
+ */
+final class ThreadLocalStringBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final ThreadLocal<StringBuilder> builders =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    StringBuilder acquire() {
+        final StringBuilder builder = builders.get();
+        // might contain leftovers of a message that failed half-way
+        builder.setLength(0);
+        return builder;
+    }
+
+    void release(final StringBuilder builder) {
+        if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+            builders.remove();
+        }
+    }
+
+}
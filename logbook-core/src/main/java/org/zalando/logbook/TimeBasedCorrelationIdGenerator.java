@@ -0,0 +1,63 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+final class TimeBasedCorrelationIdGenerator implements CorrelationIdGenerator {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final int TIMESTAMP_DIGITS = 12;
+    private static final int RANDOM_DIGITS = 20;
+    private static final int LENGTH = TIMESTAMP_DIGITS + RANDOM_DIGITS;
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[LENGTH]);
+
+    @Override
+    public String generate(final RawHttpRequest request) {
+        return generate(System.currentTimeMillis(), ThreadLocalRandom.current());
+    }
+
+    @VisibleForTesting
+    String generate(final long timestamp, final ThreadLocalRandom random) {
+        final char[] buffer = BUFFERS.get();
+
+        // 48 bits of milliseconds last until the year 10889
+        encode(timestamp, buffer, 0, TIMESTAMP_DIGITS);
+        encode(random.nextLong(), buffer, TIMESTAMP_DIGITS, 16);
+        encode(random.nextInt(), buffer, TIMESTAMP_DIGITS + 16, RANDOM_DIGITS - 16);
+
+        return new String(buffer);
+    }
+
+    private static void encode(final long value, final char[] buffer, final int offset, final int digits) {
+        long remaining = value;
+
+        for (int index = offset + digits - 1; index >= offset; index--) {
+            buffer[index] = DIGITS[(int) (remaining & 0xF)];
+            remaining >>>= 4;
+        }
+    }
+
+}
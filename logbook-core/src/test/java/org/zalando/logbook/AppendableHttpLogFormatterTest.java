@@ -0,0 +1,65 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
+import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class AppendableHttpLogFormatterTest {
+
+    private final AppendableHttpLogFormatter unit = new AppendableHttpLogFormatter() {
+
+        @Override
+        public void format(final Precorrelation<HttpRequest> precorrelation, final Appendable output)
+                throws IOException {
+            output.append("Request: ").append(precorrelation.getId());
+        }
+
+        @Override
+        public void format(final Correlation<HttpRequest, HttpResponse> correlation, final Appendable output)
+                throws IOException {
+            output.append("Response: ").append(correlation.getId());
+        }
+
+    };
+
+    @Test
+    public void shouldFormatRequestAsString() throws IOException {
+        final String message = unit.format(new SimplePrecorrelation<>("1", MockHttpRequest.create()));
+
+        assertThat(message, is("Request: 1"));
+    }
+
+    @Test
+    public void shouldFormatResponseAsString() throws IOException {
+        final String message = unit.format(
+                new SimpleCorrelation<>("2", MockHttpRequest.create(), MockHttpResponse.create()));
+
+        assertThat(message, is("Response: 2"));
+    }
+
+}
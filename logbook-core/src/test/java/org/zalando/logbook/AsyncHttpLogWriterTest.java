@@ -0,0 +1,387 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Test;
+import org.zalando.logbook.AsyncHttpLogWriter.Overflow;
+import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
+import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class AsyncHttpLogWriterTest {
+
+    private final BlockingHttpLogWriter writer = new BlockingHttpLogWriter();
+
+    private AsyncHttpLogWriter unit;
+
+    @After
+    public void close() throws IOException {
+        writer.release();
+
+        if (unit != null) {
+            unit.close();
+        }
+    }
+
+    @Test
+    public void shouldDelegateActivation() throws IOException {
+        final HttpLogWriter delegate = mock(HttpLogWriter.class);
+        final RawHttpRequest request = mock(RawHttpRequest.class);
+        when(delegate.isActive(any())).thenReturn(true);
+        unit = new AsyncHttpLogWriter(delegate);
+
+        assertThat(unit.isActive(request), is(true));
+        verify(delegate).isActive(request);
+    }
+
+    @Test
+    public void shouldWriteRequestsAndResponsesInOrder() throws IOException {
+        unit = new AsyncHttpLogWriter(writer);
+        writer.release();
+
+        unit.writeRequest(new SimplePrecorrelation<>("1", "request"));
+        unit.writeResponse(new SimpleCorrelation<>("1", "request", "response"));
+        unit.close();
+
+        assertThat(writer.messages, contains("request", "response"));
+        assertThat(unit.getEnqueued(), is(2L));
+        assertThat(unit.getDropped(), is(0L));
+    }
+
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo() {
+        unit = new AsyncHttpLogWriter(writer, 3, Overflow.DROP_NEWEST);
+
+        assertThat(unit.getCapacity(), is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveCapacity() {
+        new AsyncHttpLogWriter(writer, 0, Overflow.DROP_NEWEST);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveBatchSize() {
+        new AsyncHttpLogWriter(writer, 1, 0, Overflow.DROP_NEWEST, Thread::new);
+    }
+
+    @Test
+    public void shouldDropNewestMessageOnOverflow() throws Exception {
+        unit = new AsyncHttpLogWriter(writer, 2, Overflow.DROP_NEWEST);
+        fill("1", "2", "3");
+
+        unit.writeRequest(new SimplePrecorrelation<>("4", "4"));
+        writer.release();
+        unit.close();
+
+        assertThat(writer.messages, contains("1", "2", "3"));
+        assertThat(unit.getEnqueued(), is(3L));
+        assertThat(unit.getDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldDropOldestMessageOnOverflow() throws Exception {
+        unit = new AsyncHttpLogWriter(writer, 2, Overflow.DROP_OLDEST);
+        fill("1", "2", "3");
+
+        unit.writeRequest(new SimplePrecorrelation<>("4", "4"));
+        writer.release();
+        unit.close();
+
+        assertThat(writer.messages, contains("1", "3", "4"));
+        assertThat(unit.getEnqueued(), is(4L));
+        assertThat(unit.getDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldBlockOnOverflow() throws Exception {
+        unit = new AsyncHttpLogWriter(writer, 2, Overflow.BLOCK);
+        fill("1", "2", "3");
+
+        final Thread producer = new Thread(() -> unit.writeRequest(new SimplePrecorrelation<>("4", "4")));
+        producer.start();
+        producer.join(100);
+
+        assertThat(producer.isAlive(), is(true));
+
+        writer.release();
+        producer.join();
+        unit.close();
+
+        assertThat(writer.messages, contains("1", "2", "3", "4"));
+        assertThat(unit.getDropped(), is(0L));
+    }
+
+    @Test
+    public void shouldStopBlockingWhenClosed() throws Exception {
+        unit = new AsyncHttpLogWriter(writer, 2, Overflow.BLOCK);
+        fill("1", "2", "3");
+
+        final Thread producer = new Thread(() -> unit.writeRequest(new SimplePrecorrelation<>("4", "4")));
+        producer.start();
+
+        // the producer is waiting for space in the buffer
+        while (producer.getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+
+        final Thread closer = new Thread(this::closeQuietly);
+        closer.start();
+        producer.join();
+        writer.release();
+        closer.join();
+
+        assertThat(writer.messages, contains("1", "2", "3"));
+        assertThat(unit.getDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldDropMessagesAfterClose() throws IOException {
+        unit = new AsyncHttpLogWriter(writer);
+        unit.close();
+
+        unit.writeRequest(new SimplePrecorrelation<>("1", "1"));
+
+        assertThat(writer.messages.isEmpty(), is(true));
+        assertThat(unit.getDropped(), is(1L));
+    }
+
+    @Test
+    public void shouldContinueAfterFailingWrite() throws IOException {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        unit = new AsyncHttpLogWriter(new HttpLogWriter() {
+            @Override
+            public void writeRequest(final Precorrelation<String> precorrelation) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void writeResponse(final Correlation<String, String> correlation) throws IOException {
+                messages.add(correlation.getResponse());
+            }
+        });
+
+        unit.writeRequest(new SimplePrecorrelation<>("1", "request"));
+        unit.writeResponse(new SimpleCorrelation<>("1", "request", "response"));
+        unit.close();
+
+        assertThat(messages, contains("response"));
+    }
+
+    @Test
+    public void shouldWriteInBatches() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        unit = new AsyncHttpLogWriter(new ListHttpLogWriter(messages), 4, 1, Overflow.DROP_NEWEST,
+                delayed(started));
+
+        unit.writeRequest(new SimplePrecorrelation<>("1", "1"));
+        unit.writeRequest(new SimplePrecorrelation<>("2", "2"));
+        started.countDown();
+        unit.close();
+
+        assertThat(messages, contains("1", "2"));
+    }
+
+    @Test
+    public void shouldWritePendingMessagesOnClose() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        unit = new AsyncHttpLogWriter(new ListHttpLogWriter(messages), 4, 1, Overflow.DROP_NEWEST,
+                delayed(started));
+
+        unit.writeRequest(new SimplePrecorrelation<>("1", "1"));
+        unit.writeRequest(new SimplePrecorrelation<>("2", "2"));
+
+        final Thread closer = new Thread(this::closeQuietly);
+        closer.start();
+
+        // close() is waiting for the consumer, i.e. it won't see a running writer anymore
+        while (closer.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+
+        started.countDown();
+        closer.join();
+
+        assertThat(messages, contains("1", "2"));
+    }
+
+    @Test
+    public void shouldWriteEveryEnqueuedMessageWhenClosingConcurrently() throws Exception {
+        final AtomicLong written = new AtomicLong();
+
+        unit = new AsyncHttpLogWriter(new HttpLogWriter() {
+            @Override
+            public void writeRequest(final Precorrelation<String> precorrelation) {
+                written.incrementAndGet();
+            }
+
+            @Override
+            public void writeResponse(final Correlation<String, String> correlation) {
+                written.incrementAndGet();
+            }
+        }, 16, Overflow.BLOCK);
+
+        final CountDownLatch started = new CountDownLatch(4);
+        final List<Thread> producers = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            final Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int j = 0; j < 10_000; j++) {
+                    unit.writeRequest(new SimplePrecorrelation<>("1", "1"));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+
+        started.await();
+        unit.close();
+
+        for (final Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(written.get(), is(unit.getEnqueued()));
+        assertThat(unit.getEnqueued() + unit.getDropped(), is(40_000L));
+    }
+
+    @Test
+    public void shouldPreserveInterruptWhileClosing() throws Exception {
+        unit = new AsyncHttpLogWriter(writer);
+        fill("1");
+
+        Thread.currentThread().interrupt();
+        unit.close();
+
+        assertThat(Thread.interrupted(), is(true));
+    }
+
+    private void closeQuietly() {
+        try {
+            unit.close();
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static ThreadFactory delayed(final CountDownLatch started) {
+        return runnable -> new Thread(() -> {
+            try {
+                started.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            runnable.run();
+        });
+    }
+
+    private void fill(final String first, final String... rest) throws InterruptedException {
+        unit.writeRequest(new SimplePrecorrelation<>(first, first));
+        // the consumer is now stuck inside the writer, i.e. the buffer is empty
+        writer.awaitWrite();
+
+        for (final String message : asList(rest)) {
+            unit.writeRequest(new SimplePrecorrelation<>(message, message));
+        }
+    }
+
+    private static final class BlockingHttpLogWriter implements HttpLogWriter {
+
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch written = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public void writeRequest(final Precorrelation<String> precorrelation) {
+            write(precorrelation.getRequest());
+        }
+
+        @Override
+        public void writeResponse(final Correlation<String, String> correlation) {
+            write(correlation.getResponse());
+        }
+
+        private void write(final String message) {
+            messages.add(message);
+            written.countDown();
+
+            try {
+                released.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void awaitWrite() throws InterruptedException {
+            assertThat(written.await(1, TimeUnit.SECONDS), is(true));
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+    }
+
+    private static final class ListHttpLogWriter implements HttpLogWriter {
+
+        private final List<String> messages;
+
+        private ListHttpLogWriter(final List<String> messages) {
+            this.messages = messages;
+        }
+
+        @Override
+        public void writeRequest(final Precorrelation<String> precorrelation) {
+            messages.add(precorrelation.getRequest());
+        }
+
+        @Override
+        public void writeResponse(final Correlation<String, String> correlation) {
+            messages.add(correlation.getResponse());
+        }
+
+    }
+
+}
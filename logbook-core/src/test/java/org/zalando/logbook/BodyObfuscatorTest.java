@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public final class BodyObfuscatorTest {
@@ -35,4 +36,9 @@ public final class BodyObfuscatorTest {
         assertThat(unit.obfuscate("text/plain", "Hello, world!"), is(equalTo("Hello, world!")));
     }
 
+    @Test
+    public void noneShouldBeSingleton() {
+        assertThat(BodyObfuscator.none(), is(sameInstance(BodyObfuscator.none())));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
+import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+
+public final class CharSequenceHttpLogWriterTest {
+
+    private final CharSequenceHttpLogWriter unit = mock(CharSequenceHttpLogWriter.class,
+            withSettings().defaultAnswer(CALLS_REAL_METHODS));
+
+    @Test
+    public void shouldDelegateStringRequest() throws IOException {
+        unit.writeRequest(new SimplePrecorrelation<>("1", "request"));
+
+        verify(unit).writeRequest("1", "request");
+    }
+
+    @Test
+    public void shouldDelegateStringResponse() throws IOException {
+        unit.writeResponse(new SimpleCorrelation<>("1", "request", "response"));
+
+        verify(unit).writeResponse("1", "response");
+    }
+
+}
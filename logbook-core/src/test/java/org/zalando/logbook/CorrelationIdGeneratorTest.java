@@ -0,0 +1,87 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public final class CorrelationIdGeneratorTest {
+
+    private final RawHttpRequest request = mock(RawHttpRequest.class);
+
+    @Test
+    public void shouldGenerateUuid() {
+        final String id = CorrelationIdGenerator.uuid().generate(request);
+
+        assertThat(UUID.fromString(id).toString(), is(id));
+    }
+
+    @Test
+    public void shouldGenerateTimeBasedHexIds() {
+        final String id = CorrelationIdGenerator.timeBased().generate(request);
+
+        assertThat(id, matchesPattern("[0-9a-f]{32}"));
+    }
+
+    @Test
+    public void shouldEncodeTimestampFirst() {
+        final TimeBasedCorrelationIdGenerator unit = new TimeBasedCorrelationIdGenerator();
+
+        final String id = unit.generate(0x0150a0c3e5f1L, ThreadLocalRandom.current());
+
+        assertThat(id, startsWith("0150a0c3e5f1"));
+    }
+
+    @Test
+    public void shouldOrderTimeBasedIdsByTime() {
+        final TimeBasedCorrelationIdGenerator unit = new TimeBasedCorrelationIdGenerator();
+
+        final String first = unit.generate(1444212000000L, ThreadLocalRandom.current());
+        final String second = unit.generate(1444212000001L, ThreadLocalRandom.current());
+
+        assertThat(first.compareTo(second), is(lessThan(0)));
+    }
+
+    @Test
+    public void shouldGenerateDistinctTimeBasedIds() {
+        final CorrelationIdGenerator unit = CorrelationIdGenerator.timeBased();
+        final Set<String> ids = newHashSet();
+
+        for (int i = 0; i < 1000; i++) {
+            ids.add(unit.generate(request));
+        }
+
+        assertThat(ids, hasSize(1000));
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class CorrelationTest {
+
+    @Test
+    public void shouldNotKnowDurationByDefault() {
+        final Correlation<?, ?> correlation = mock(Correlation.class);
+
+        when(correlation.getDurationNanos()).thenCallRealMethod();
+        when(correlation.getDuration()).thenCallRealMethod();
+
+        assertThat(correlation.getDurationNanos(), is(0L));
+        assertThat(correlation.getDuration(), is(Duration.ZERO));
+    }
+
+}
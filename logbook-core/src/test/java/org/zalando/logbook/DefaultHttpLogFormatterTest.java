@@ -20,18 +20,23 @@ package org.zalando.logbook;
  * #L%
  */
 
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableListMultimap;
 import org.junit.Test;
 import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
 import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
 
 import java.io.IOException;
+import java.net.URI;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public final class DefaultHttpLogFormatterTest {
 
-    private final HttpLogFormatter unit = new DefaultHttpLogFormatter();
+    private final AppendableHttpLogFormatter unit = new DefaultHttpLogFormatter();
 
     @Test
     public void shouldLogRequest() throws IOException {
@@ -99,13 +104,25 @@ public final class DefaultHttpLogFormatterTest {
 
         final String http = unit.format(new SimpleCorrelation<>(correlationId, request, response));
 
-        assertThat(http, equalTo("Response: 2d51bc02-677e-11e5-8b9b-10ddb1ee7671\n" +
+        assertThat(http, equalTo("Response: 2d51bc02-677e-11e5-8b9b-10ddb1ee7671 (0 ms)\n" +
                 "HTTP/1.1 200\n" +
                 "Content-Type: application/json\n" +
                 "\n" +
                 "{\"success\":true}"));
     }
 
+    @Test
+    public void shouldLogResponseDuration() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+        final HttpResponse response = MockHttpResponse.create();
+
+        final String http = unit.format(new SimpleCorrelation<>(correlationId, request, response, 1_234_567_890));
+
+        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (1234 ms)\n" +
+                "HTTP/1.1 200"));
+    }
+
     @Test
     public void shouldLogResponseWithoutBody() throws IOException {
         final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
@@ -116,9 +133,150 @@ public final class DefaultHttpLogFormatterTest {
 
         final String http = unit.format(new SimpleCorrelation<>(correlationId, request, response));
 
-        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671\n" +
+        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (0 ms)\n" +
                 "HTTP/1.1 200\n" +
                 "Content-Type: application/json"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldPreserveHeaderOrderAndJoinMultipleValues() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+        final HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(201);
+        when(response.getHeaders()).thenReturn(ImmutableListMultimap.<String, String>builder()
+                .put("X-Zeta", "1")
+                .put("Vary", "Accept")
+                .put("Vary", "Accept-Encoding")
+                .put("Age", "0")
+                .build());
+        when(response.getBodyAsString()).thenReturn("");
+
+        final String http = unit.format(new SimpleCorrelation<>(correlationId, request, response));
+
+        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (0 ms)\n" +
+                "HTTP/1.1 201\n" +
+                "X-Zeta: 1\n" +
+                "Vary: Accept, Accept-Encoding\n" +
+                "Age: 0"));
+    }
+
+    @Test
+    public void shouldNotLeakFailedMessageIntoNextOne() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final HttpRequest failing = mock(HttpRequest.class);
+        when(failing.getMethod()).thenReturn("GET");
+        when(failing.getRequestUri()).thenReturn(URI.create("/fail"));
+        when(failing.getHeaders()).thenReturn(ImmutableListMultimap.of());
+        when(failing.getBodyAsString()).thenThrow(new IOException());
+
+        try {
+            unit.format(new SimplePrecorrelation<>(correlationId, failing));
+        } catch (final IOException e) {
+            // expected
+        }
+
+        final String http = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .requestUri("/test")
+                .build()));
+
+        assertThat(http, equalTo("Request: 3881ae92-6824-11e5-921b-10ddb1ee7671\n" +
+                "GET /test HTTP/1.1"));
+    }
+
+    @Test
+    public void shouldLogHugeBodies() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final String body = Strings.repeat("x", 128 * 1024);
+
+        final String huge = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .requestUri("/test")
+                .body(body)
+                .build()));
+        final String small = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .requestUri("/test")
+                .build()));
+
+        assertThat(huge, equalTo("Request: 3881ae92-6824-11e5-921b-10ddb1ee7671\n" +
+                "GET /test HTTP/1.1\n" +
+                "\n" +
+                body));
+        assertThat(small, equalTo("Request: 3881ae92-6824-11e5-921b-10ddb1ee7671\n" +
+                "GET /test HTTP/1.1"));
+    }
+
+    @Test
+    public void shouldAppendRequest() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final StringBuilder output = new StringBuilder();
+
+        unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .requestUri("/test")
+                .build()), output);
+
+        assertThat(output.toString(), equalTo("Request: 3881ae92-6824-11e5-921b-10ddb1ee7671\n" +
+                "GET /test HTTP/1.1"));
+    }
+
+    @Test
+    public void shouldAppendResponse() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final StringBuilder output = new StringBuilder();
+
+        unit.format(new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), MockHttpResponse.builder()
+                .status(201)
+                .build()), output);
+
+        assertThat(output.toString(), equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (0 ms)\n" +
+                "HTTP/1.1 201"));
+    }
+
+    @Test
+    public void shouldMarkTruncatedBody() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final HttpResponse response = truncated(MockHttpResponse.builder()
+                .body("Hello")
+                .build(), 13);
+
+        final String http = unit.format(new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), response));
+
+        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (0 ms)\n" +
+                "HTTP/1.1 200\n" +
+                "\n" +
+                "Hello... [truncated, 13 bytes in total]"));
+    }
+
+    @Test
+    public void shouldMarkTruncatedBodyOfUnknownSize() throws IOException {
+        final String correlationId = "3881ae92-6824-11e5-921b-10ddb1ee7671";
+        final HttpResponse response = truncated(MockHttpResponse.create(), -1);
+
+        final String http = unit.format(new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), response));
+
+        assertThat(http, equalTo("Response: 3881ae92-6824-11e5-921b-10ddb1ee7671 (0 ms)\n" +
+                "HTTP/1.1 200\n" +
+                "\n" +
+                "... [truncated]"));
+    }
+
+    static HttpResponse truncated(final HttpResponse response, final long size) {
+        return new ForwardingHttpResponse() {
+
+            @Override
+            protected HttpResponse delegate() {
+                return response;
+            }
+
+            @Override
+            public boolean isTruncated() {
+                return true;
+            }
+
+            @Override
+            public long getBodySize() {
+                return size;
+            }
+
+        };
+    }
+}
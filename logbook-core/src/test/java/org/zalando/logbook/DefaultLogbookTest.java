@@ -23,19 +23,30 @@ package org.zalando.logbook;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hobsoft.hamcrest.compose.ComposeMatchers.hasFeature;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public final class DefaultLogbookTest {
 
@@ -44,6 +55,7 @@ public final class DefaultLogbookTest {
     private final Obfuscator headerObfuscator = mock(Obfuscator.class);
     private final Obfuscator parameterObfuscator = mock(Obfuscator.class);
     private final BodyObfuscator bodyObfuscator = mock(BodyObfuscator.class);
+    private final CorrelationIdGenerator correlationIdGenerator = mock(CorrelationIdGenerator.class);
 
     private final Logbook unit = Logbook.builder()
             .writer(writer)
@@ -51,6 +63,7 @@ public final class DefaultLogbookTest {
             .headerObfuscator(headerObfuscator)
             .parameterObfuscator(parameterObfuscator)
             .bodyObfuscator(bodyObfuscator)
+            .correlationIdGenerator(correlationIdGenerator)
             .build();
 
     private final RawHttpRequest rawHttpRequest = mock(RawHttpRequest.class);
@@ -64,6 +77,7 @@ public final class DefaultLogbookTest {
         when(writer.isActive(any())).thenReturn(true);
         when(rawHttpRequest.withBody()).thenReturn(request);
         when(rawHttpResponse.withBody()).thenReturn(response);
+        when(correlationIdGenerator.generate(any())).thenReturn("3ce91230-677b-11e5-87b7-10ddb1ee7671");
     }
 
     @Test
@@ -84,6 +98,175 @@ public final class DefaultLogbookTest {
         verify(rawHttpRequest, never()).withBody();
     }
 
+    @Test
+    public void shouldNotReadBodyIfConditionRejectsRequest() throws IOException {
+        final Logbook unit = Logbook.builder()
+                .condition(request -> false)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        final Optional<Correlator> correlator = unit.write(rawHttpRequest);
+
+        assertThat(correlator, hasFeature("present", Optional::isPresent, is(false)));
+        verify(writer, never()).isActive(any());
+        verify(rawHttpRequest, never()).withBody();
+    }
+
+    @Test
+    public void shouldLogRequestIfConditionAcceptsIt() throws IOException {
+        final Logbook unit = Logbook.builder()
+                .condition(request -> request == rawHttpRequest)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        final Optional<Correlator> correlator = unit.write(rawHttpRequest);
+
+        assertThat(correlator, hasFeature("present", Optional::isPresent, is(true)));
+        verify(rawHttpRequest).withBody();
+    }
+
+    @Test
+    public void shouldNotReadBodyIfSampledOut() throws IOException {
+        final Logbook unit = Logbook.builder()
+                .sampler(request -> false)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        final Optional<Correlator> correlator = unit.write(rawHttpRequest);
+
+        assertThat(correlator, hasFeature("present", Optional::isPresent, is(false)));
+        verify(rawHttpRequest, never()).withBody();
+    }
+
+    @Test
+    public void shouldNotWriteDeferredRequestIfResponseConditionDoesNotMatch() throws IOException {
+        when(response.getStatus()).thenReturn(200);
+
+        final Logbook unit = Logbook.builder()
+                .responseCondition(correlation -> correlation.getResponse().getStatus() >= 400)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        final Correlator correlator = unit.write(rawHttpRequest).get();
+
+        verify(writer, never()).writeRequest(any());
+
+        correlator.write(rawHttpResponse);
+
+        verify(formatter, never()).format(anyPrecorrelation());
+        verify(formatter, never()).format(anyCorrelation());
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldNotReadResponseBodyIfResponseConditionDoesNotMatch() throws IOException {
+        final RawHttpResponse rawHttpResponse = mock(RawHttpResponse.class,
+                withSettings().extraInterfaces(HttpResponse.class));
+        when(((HttpResponse) rawHttpResponse).getStatus()).thenReturn(200);
+
+        final Logbook unit = Logbook.builder()
+                .responseCondition(correlation -> correlation.getResponse().getStatus() >= 400)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        unit.write(rawHttpRequest).get().write(rawHttpResponse);
+
+        verify(rawHttpResponse, never()).withBody();
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldReadResponseBodyOnceIfResponseConditionMatches() throws IOException {
+        final RawHttpResponse rawHttpResponse = mock(RawHttpResponse.class,
+                withSettings().extraInterfaces(HttpResponse.class));
+        when(((HttpResponse) rawHttpResponse).getStatus()).thenReturn(503);
+        when(rawHttpResponse.withBody()).thenReturn(response);
+
+        final Logbook unit = Logbook.builder()
+                .responseCondition(correlation -> correlation.getResponse().getStatus() >= 400)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        unit.write(rawHttpRequest).get().write(rawHttpResponse);
+
+        verify(rawHttpResponse).withBody();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<HttpRequest, HttpResponse>> captor = ArgumentCaptor.forClass(Correlation.class);
+        verify(formatter).format(captor.capture());
+        assertThat(captor.getValue().getResponse(), instanceOf(ObfuscatedHttpResponse.class));
+    }
+
+    @Test
+    public void shouldWriteDeferredRequestAndResponseIfResponseConditionMatches() throws IOException {
+        when(response.getStatus()).thenReturn(503);
+        when(formatter.format(anyPrecorrelation())).thenReturn("request");
+        when(formatter.format(anyCorrelation())).thenReturn("response");
+
+        final Logbook unit = Logbook.builder()
+                .responseCondition(correlation -> correlation.getResponse().getStatus() >= 400)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        final Correlator correlator = unit.write(rawHttpRequest).get();
+
+        verify(writer, never()).writeRequest(any());
+
+        correlator.write(rawHttpResponse);
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<String, String>> captor = ArgumentCaptor.forClass(Correlation.class);
+        final InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).writeRequest(any());
+        inOrder.verify(writer).writeResponse(captor.capture());
+
+        assertThat(captor.getValue().getRequest(), is("request"));
+        assertThat(captor.getValue().getResponse(), is("response"));
+    }
+
+    @Test
+    public void shouldWriteStreamingRequestAlongsideResponse() throws IOException {
+        when(rawHttpRequest.isStreaming()).thenReturn(true);
+        when(formatter.format(anyPrecorrelation())).thenReturn("request");
+        when(formatter.format(anyCorrelation())).thenReturn("response");
+
+        final Correlator correlator = unit.write(rawHttpRequest).get();
+
+        verify(formatter, never()).format(anyPrecorrelation());
+        verify(writer, never()).writeRequest(any());
+
+        correlator.write(rawHttpResponse);
+
+        final InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).writeRequest(any());
+        inOrder.verify(writer).writeResponse(any());
+    }
+
+    @Test
+    public void shouldApplyResponseConditionToStreamingRequest() throws IOException {
+        when(rawHttpRequest.isStreaming()).thenReturn(true);
+        when(response.getStatus()).thenReturn(200);
+
+        final Logbook unit = Logbook.builder()
+                .responseCondition(correlation -> correlation.getResponse().getStatus() >= 400)
+                .writer(writer)
+                .formatter(formatter)
+                .build();
+
+        unit.write(rawHttpRequest).get().write(rawHttpResponse);
+
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
     @Test
     public void shouldObfuscateRequest() throws IOException {
         final Correlator correlator = unit.write(rawHttpRequest).get();
@@ -113,4 +296,78 @@ public final class DefaultLogbookTest {
         assertThat(correlation.getResponse(), instanceOf(ObfuscatedHttpResponse.class));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldUseCorrelationIdGenerator() throws IOException {
+        final Correlator correlator = unit.write(rawHttpRequest).get();
+
+        correlator.write(rawHttpResponse);
+
+        verify(correlationIdGenerator).generate(rawHttpRequest);
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<String, String>> captor = ArgumentCaptor.forClass(Correlation.class);
+        verify(writer).writeResponse(captor.capture());
+
+        assertThat(captor.getValue().getId(), is("3ce91230-677b-11e5-87b7-10ddb1ee7671"));
+    }
+
+    @Test
+    public void shouldAppendDirectlyIfFormatterAndWriterSupportIt() throws IOException {
+        final AppendableHttpLogFormatter formatter = mock(AppendableHttpLogFormatter.class);
+        final CharSequenceHttpLogWriter writer = mock(CharSequenceHttpLogWriter.class);
+        final List<String> messages = new ArrayList<>();
+
+        when(writer.isActive(any())).thenReturn(true);
+        doAnswer(invocation -> invocation.getArgumentAt(1, Appendable.class).append("request"))
+                .when(formatter).format(anyPrecorrelation(), any(Appendable.class));
+        doAnswer(invocation -> invocation.getArgumentAt(1, Appendable.class).append("response"))
+                .when(formatter).format(anyCorrelation(), any(Appendable.class));
+        // messages are only valid during the call
+        doAnswer(invocation -> messages.add(invocation.getArgumentAt(1, CharSequence.class).toString()))
+                .when(writer).writeRequest(anyString(), any(CharSequence.class));
+        doAnswer(invocation -> messages.add(invocation.getArgumentAt(1, CharSequence.class).toString()))
+                .when(writer).writeResponse(anyString(), any(CharSequence.class));
+
+        final Logbook unit = Logbook.builder()
+                .writer(writer)
+                .formatter(formatter)
+                .correlationIdGenerator(correlationIdGenerator)
+                .build();
+
+        unit.write(rawHttpRequest).get().write(rawHttpResponse);
+
+        assertThat(messages, contains("request", "response"));
+        verify(formatter, never()).format(anyPrecorrelation());
+        verify(formatter, never()).format(anyCorrelation());
+    }
+
+    @Test
+    public void shouldMeasureDuration() throws IOException {
+        final Iterator<Long> clock = asList(1_000L, 3_500L).iterator();
+        final Logbook unit = new DefaultLogbook(request -> true, Sampler.always(), null, formatter, writer,
+                new Obfuscation(Obfuscator.none(), Obfuscator.none(), BodyObfuscator.none()),
+                correlationIdGenerator, clock::next);
+
+        unit.write(rawHttpRequest).get().write(rawHttpResponse);
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<HttpRequest, HttpResponse>> formatted =
+                ArgumentCaptor.forClass(Correlation.class);
+        verify(formatter).format(formatted.capture());
+        assertThat(formatted.getValue().getDuration(), is(Duration.ofNanos(2_500)));
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<String, String>> written = ArgumentCaptor.forClass(Correlation.class);
+        verify(writer).writeResponse(written.capture());
+        assertThat(written.getValue().getDurationNanos(), is(2_500L));
+    }
+
+    private static Precorrelation<HttpRequest> anyPrecorrelation() {
+        return any();
+    }
+
+    private static Correlation<HttpRequest, HttpResponse> anyCorrelation() {
+        return any();
+    }
+
+}
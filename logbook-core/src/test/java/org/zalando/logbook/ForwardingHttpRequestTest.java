@@ -50,6 +50,8 @@ public final class ForwardingHttpRequestTest {
         assertThat(unit.getCharset(), is(UTF_8));
         assertThat(unit.getBody(), is("".getBytes(UTF_8)));
         assertThat(unit.getBodyAsString(), is(emptyString()));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(0L));
     }
     
 }
\ No newline at end of file
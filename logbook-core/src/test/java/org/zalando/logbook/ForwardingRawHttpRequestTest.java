@@ -47,6 +47,7 @@ public final class ForwardingRawHttpRequestTest {
         assertThat(unit.getRemote(), is("127.0.0.1"));
         assertThat(unit.getMethod(), is("GET"));
         assertThat(unit.getRequestUri(), hasToString("http://localhost/"));
+        assertThat(unit.isStreaming(), is(false));
     }
 
     @Test
@@ -43,4 +43,15 @@ public final class HttpMessageTest {
         assertThat(message.getBodyAsString(), is("foo"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldNotBeTruncatedByDefault() throws IOException {
+        final HttpMessage message = mock(HttpMessage.class);
+
+        when(message.getBody()).thenReturn("foo".getBytes(UTF_8));
+        when(message.isTruncated()).thenCallRealMethod();
+        when(message.getBodySize()).thenCallRealMethod();
+
+        assertThat(message.isTruncated(), is(false));
+        assertThat(message.getBodySize(), is(3L));
+    }
+}
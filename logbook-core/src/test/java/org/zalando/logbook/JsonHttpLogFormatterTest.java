@@ -20,11 +20,17 @@ package org.zalando.logbook;
  * #L%
  */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableListMultimap;
 import org.junit.Test;
 import org.zalando.logbook.DefaultLogbook.SimpleCorrelation;
 import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
 
 import static com.jayway.jsonassert.JsonAssert.with;
 import static java.util.Collections.singletonList;
@@ -34,11 +40,15 @@ import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public final class JsonHttpLogFormatterTest {
 
-    private final HttpLogFormatter unit = new JsonHttpLogFormatter();
+    private final AppendableHttpLogFormatter unit = new JsonHttpLogFormatter();
 
     @Test
     public void shouldLogRequest() throws IOException {
@@ -195,6 +205,18 @@ public final class JsonHttpLogFormatterTest {
                 .assertThat("$.body", is("<success>true<success>"));
     }
 
+    @Test
+    public void shouldLogResponseDuration() throws IOException {
+        final String correlationId = "53de2640-677d-11e5-bc84-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+        final HttpResponse response = MockHttpResponse.create();
+
+        final String json = unit.format(new SimpleCorrelation<>(correlationId, request, response, 1_234_567_890));
+
+        with(json)
+                .assertThat("$.duration", is(1234));
+    }
+
     @Test
     public void shouldLogResponseWithoutHeaders() throws IOException {
         final String correlationId = "f53ceee2-682a-11e5-a63e-10ddb1ee7671";
@@ -310,5 +332,356 @@ public final class JsonHttpLogFormatterTest {
                 .assertThat("$.body", is("{\n \"name\":\"Bob\";;;\n;}"));
     }
 
+    @Test
+    public void shouldReuseGeneratorForConsecutiveMessages() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .body("Hello, world!")
+                .build();
+
+        final String first = unit.format(new SimplePrecorrelation<>(correlationId, request));
+        final String second = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        assertThat(second, is(first));
+        with(second)
+                .assertThat("$.body", is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldRecoverFromFailingRequestBody() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = mock(HttpRequest.class);
+        when(request.getRemote()).thenReturn("127.0.0.1");
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestUri()).thenReturn(URI.create("http://localhost/"));
+        when(request.getHeaders()).thenReturn(ImmutableListMultimap.of());
+        when(request.getContentType()).thenReturn("");
+        when(request.getBodyAsString()).thenThrow(new IOException());
+
+        try {
+            unit.format(new SimplePrecorrelation<>(correlationId, request));
+        } catch (final IOException e) {
+            // expected
+        }
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.create()));
+
+        with(json)
+                .assertThat("$.type", is("request"));
+        assertThat(json, startsWith("{\"type\""));
+    }
+
+    @Test
+    public void shouldRecoverFromFailingResponseBody() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+        final HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getHeaders()).thenReturn(ImmutableListMultimap.of());
+        when(response.getContentType()).thenReturn("");
+        when(response.getBodyAsString()).thenThrow(new IOException());
+
+        try {
+            unit.format(new SimpleCorrelation<>(correlationId, request, response));
+        } catch (final IOException e) {
+            // expected
+        }
+
+        final String json = unit.format(new SimpleCorrelation<>(correlationId, request, MockHttpResponse.create()));
+
+        with(json)
+                .assertThat("$.type", is("response"));
+        assertThat(json, startsWith("{\"type\""));
+    }
+
+    @Test
+    public void shouldNotLeakHugeBodiesIntoNextMessage() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final String body = Strings.repeat("x", 128 * 1024);
+
+        final String huge = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .body(body)
+                .build()));
+        final String small = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.builder()
+                .body("Hello, world!")
+                .build()));
+
+        with(huge)
+                .assertThat("$.body", is(body));
+        with(small)
+                .assertThat("$.body", is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldSupportIndentedOutput() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT));
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+
+        unit.format(new SimplePrecorrelation<>(correlationId, request));
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        assertThat(json, startsWith("{\n"));
+        with(json)
+                .assertThat("$.type", is("request"));
+    }
+
+    @Test
+    public void shouldPreserveNumbersOfEmbeddedJsonBody() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{\n  \"amount\": 0.100000000000000000055511151231257827,\n  \"count\": 1e5\n}")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        assertThat(json, containsString("{\"amount\":0.100000000000000000055511151231257827,\"count\":1e5}"));
+    }
+
+    @Test
+    public void shouldEmbedJsonBodyWithEscapedAndNonAsciiCharacters() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{\"name\": \"B\\\"öb\"}")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body.name", is("B\"öb"));
+    }
+
+    @Test
+    public void shouldLogInvalidCompactJsonBodyAsString() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{\"name\":\"Bob\";}")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is("{\"name\":\"Bob\";}"));
+    }
+
+    @Test
+    public void shouldLogJsonBodyWithMultipleValuesAsString() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{} {}")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is("{} {}"));
+    }
+
+    @Test
+    public void shouldLogBlankJsonBodyAsString() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body(" \n ")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is(" \n "));
+    }
+
+    @Test
+    public void shouldEmbedScalarJsonBody() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body(" true\n")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is(true));
+    }
+
+    @Test
+    public void shouldEmbedTrustedJsonBodyWithoutWhitespace() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{\n\t\"first name\" :\r [1, \"B\\\" \\\\ b\"]\n}")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        assertThat(json, containsString("\"body\":{\"first name\":[1,\"B\\\" \\\\ b\"]}"));
+        with(json)
+                .assertThat("$.body['first name'][1]", is("B\" \\ b"));
+    }
+
+    @Test
+    public void shouldEmbedTrustedJsonBodyAsEmptyStringIfEmpty() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is(emptyString()));
+    }
+
+    @Test
+    public void shouldEmbedTrustedBodyAsStringIfItIsNoJson() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("<binary 1024 bytes>")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is("<binary 1024 bytes>"));
+    }
+
+    @Test
+    public void shouldEmbedTrustedBlankBodyAsString() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body(" \n")
+                .build();
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+        with(json)
+                .assertThat("$.body", is(" \n"));
+    }
+
+    @Test
+    public void shouldEmbedTrustedJsonScalars() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+
+        for (final String body : new String[]{"\"s\"", "-1", "42", "true", "false", "null"}) {
+            final HttpRequest request = MockHttpRequest.builder()
+                    .contentType("application/json")
+                    .body(" " + body + "\n")
+                    .build();
+
+            final String json = unit.format(new SimplePrecorrelation<>(correlationId, request));
+
+            assertThat(json, containsString("\"body\":" + body + "}"));
+        }
+    }
+
+    @Test
+    public void shouldNotRetainHugeScratchBuffers() throws IOException {
+        final HttpLogFormatter unit = new JsonHttpLogFormatter(new ObjectMapper(), JsonHttpLogFormatter.Embedding.TRUST);
+
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest huge = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("{" + Strings.repeat(" ", 128 * 1024) + "}")
+                .build();
+        final HttpRequest small = MockHttpRequest.builder()
+                .contentType("application/json")
+                .body("[]")
+                .build();
+
+        final String first = unit.format(new SimplePrecorrelation<>(correlationId, huge));
+        final String second = unit.format(new SimplePrecorrelation<>(correlationId, small));
+
+        assertThat(first, containsString("\"body\":{}"));
+        assertThat(second, containsString("\"body\":[]"));
+    }
+
+    @Test
+    public void shouldAppendRequestToStringBuilder() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpRequest request = MockHttpRequest.create();
+        final StringBuilder output = new StringBuilder("prefix:");
+
+        unit.format(new SimplePrecorrelation<>(correlationId, request), output);
+
+        assertThat(output.toString(), is("prefix:" + unit.format(new SimplePrecorrelation<>(correlationId, request))));
+    }
+
+    @Test
+    public void shouldAppendResponseToAnyAppendable() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final Correlation<HttpRequest, HttpResponse> correlation =
+                new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), MockHttpResponse.create());
+        final StringWriter output = new StringWriter();
+
+        unit.format(correlation, output);
+
+        assertThat(output.toString(), is(unit.format(correlation)));
+    }
+
+    @Test
+    public void shouldRecoverFromFailingAppendable() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final Appendable output = mock(Appendable.class);
+        when(output.append(any())).thenThrow(new IOException());
+
+        try {
+            unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.create()), output);
+        } catch (final IOException e) {
+            // expected
+        }
+
+        final String json = unit.format(new SimplePrecorrelation<>(correlationId, MockHttpRequest.create()));
 
-}
\ No newline at end of file
+        assertThat(json, startsWith("{\"type\""));
+    }
+
+    @Test
+    public void shouldLogTruncatedJsonBodyAsString() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpResponse response = DefaultHttpLogFormatterTest.truncated(MockHttpResponse.builder()
+                .contentType("application/json")
+                .body("{\"name\":")
+                .build(), 15);
+
+        final String json = unit.format(new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), response));
+
+        with(json)
+                .assertThat("$.body", is("{\"name\":"))
+                .assertThat("$.truncated", is(true))
+                .assertThat("$.bodySize", is(15));
+    }
+
+    @Test
+    public void shouldLogTruncatedBodyOfUnknownSize() throws IOException {
+        final String correlationId = "5478b8da-6d87-11e5-a80f-10ddb1ee7671";
+        final HttpResponse response = DefaultHttpLogFormatterTest.truncated(MockHttpResponse.builder()
+                .body("Hello")
+                .build(), -1);
+
+        final String json = unit.format(new SimpleCorrelation<>(correlationId, MockHttpRequest.create(), response));
+
+        with(json)
+                .assertThat("$.body", is("Hello"))
+                .assertThat("$.truncated", is(true))
+                .assertThat("$", not(hasKey("bodySize")));
+    }
+}
@@ -0,0 +1,102 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public final class LazyHttpResponseTest {
+
+    private final Obfuscation obfuscation = new Obfuscation(Obfuscator.authorization(), Obfuscator.none(),
+            (contentType, body) -> body.replace("s3cr3t", "f4k3"));
+
+    private final HttpResponse response = MockHttpResponse.builder()
+            .status(503)
+            .header("Authorization", "Bearer s3cr3t")
+            .contentType("text/plain")
+            .body("My secret is s3cr3t")
+            .build();
+
+    @Test
+    public void shouldNotReadBodyForStatusAndHeaders() throws IOException {
+        final RawHttpResponse raw = mock(RawHttpResponse.class, withSettings().extraInterfaces(HttpResponse.class));
+        final HttpResponse head = (HttpResponse) raw;
+        when(head.getStatus()).thenReturn(503);
+        when(head.getHeaders()).thenReturn(response.getHeaders());
+        when(head.getContentType()).thenReturn("text/plain");
+        when(head.getCharset()).thenReturn(UTF_8);
+
+        final LazyHttpResponse unit = new LazyHttpResponse(raw, obfuscation);
+
+        assertThat(unit.getStatus(), is(503));
+        assertThat(unit.getHeaders().asMap(), hasEntry(equalTo("Authorization"), contains("XXX")));
+        assertThat(unit.getContentType(), is("text/plain"));
+        assertThat(unit.getCharset(), is(UTF_8));
+        verify(raw, never()).withBody();
+    }
+
+    @Test
+    public void shouldReadBodyOnlyOnceOnDemand() throws IOException {
+        final RawHttpResponse raw = mock(RawHttpResponse.class);
+        when(raw.withBody()).thenReturn(response);
+
+        final LazyHttpResponse unit = new LazyHttpResponse(raw, obfuscation);
+
+        verify(raw, never()).withBody();
+
+        assertThat(unit.getStatus(), is(503));
+        assertThat(unit.getContentType(), is("text/plain"));
+        assertThat(unit.getCharset(), is(UTF_8));
+        assertThat(unit.getHeaders().asMap(), hasEntry(equalTo("Authorization"), contains("XXX")));
+        assertThat(unit.getBodyAsString(), is("My secret is f4k3"));
+        assertThat(new String(unit.getBody(), UTF_8), is("My secret is f4k3"));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(19L));
+        assertThat(unit.withBody(), is(sameInstance(unit.withBody())));
+
+        verify(raw, times(1)).withBody();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void shouldRethrowFailureToReadBodyUnchecked() throws IOException {
+        final RawHttpResponse raw = mock(RawHttpResponse.class);
+        when(raw.withBody()).thenThrow(new IOException());
+
+        new LazyHttpResponse(raw, obfuscation).getStatus();
+    }
+
+}
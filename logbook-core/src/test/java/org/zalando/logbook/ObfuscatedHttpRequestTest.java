@@ -24,13 +24,19 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public final class ObfuscatedHttpRequestTest {
 
@@ -79,6 +85,19 @@ public final class ObfuscatedHttpRequestTest {
         assertThat(unit.getBodyAsString(), is("My secret is f4k3"));
     }
 
+    @Test
+    public void shouldPassBodyContentThroughIfNotObfuscated() throws IOException {
+        final byte[] body = "Hello, world!".getBytes(UTF_8);
+        final HttpRequest request = mock(HttpRequest.class);
+        when(request.getBody()).thenReturn(body);
+
+        final HttpRequest unit = new ObfuscatedHttpRequest(request, Obfuscator.none(), Obfuscator.none(),
+                BodyObfuscator.none());
+
+        assertThat(unit.getBody(), is(sameInstance(body)));
+        verify(request, never()).getBodyAsString();
+    }
+
     @Test
     public void shouldObfuscateBodyContent() throws IOException {
         assertThat(new String(unit.getBody(), unit.getCharset()), is("My secret is f4k3"));
@@ -24,11 +24,17 @@ import org.junit.Test;
 
 import java.io.IOException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public final class ObfuscatedHttpResponseTest {
 
@@ -55,6 +61,18 @@ public final class ObfuscatedHttpResponseTest {
         assertThat(unit.getBodyAsString(), is("My secret is f4k3"));
     }
 
+    @Test
+    public void shouldPassBodyContentThroughIfNotObfuscated() throws IOException {
+        final byte[] body = "Hello, world!".getBytes(UTF_8);
+        final HttpResponse response = mock(HttpResponse.class);
+        when(response.getBody()).thenReturn(body);
+
+        final HttpResponse unit = new ObfuscatedHttpResponse(response, Obfuscator.none(), BodyObfuscator.none());
+
+        assertThat(unit.getBody(), is(sameInstance(body)));
+        verify(response, never()).getBodyAsString();
+    }
+
     @Test
     public void shouldObfuscateBodyContent() throws IOException {
         assertThat(new String(unit.getBody(), unit.getCharset()), is("My secret is f4k3"));
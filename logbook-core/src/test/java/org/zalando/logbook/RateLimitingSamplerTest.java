@@ -0,0 +1,95 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public final class RateLimitingSamplerTest {
+
+    private final RawHttpRequest request = mock(RawHttpRequest.class);
+    private final AtomicLong clock = new AtomicLong(Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(1500));
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectZeroPermits() {
+        new RateLimitingSampler(0, clock::get);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMorePermitsThanNanosPerSecond() {
+        new RateLimitingSampler(1_000_000_001, clock::get);
+    }
+
+    @Test
+    public void shouldAllowBurstOfOneSecond() {
+        final Sampler unit = new RateLimitingSampler(4, clock::get);
+
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(false));
+    }
+
+    @Test
+    public void shouldRefillOverTimeAcrossOverflow() {
+        final Sampler unit = new RateLimitingSampler(4, clock::get);
+
+        for (int i = 0; i < 4; i++) {
+            unit.sample(request);
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(false));
+
+        // nano time overflows
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(false));
+    }
+
+    @Test
+    public void shouldRejectIfOtherThreadTookLastPermit() {
+        final Sampler unit = new RateLimitingSampler(1, clock::get) {
+
+            @Override
+            long readFull() {
+                // an outdated value, as if another thread took the permit in the meantime
+                return clock.get() - TimeUnit.SECONDS.toNanos(1);
+            }
+
+        };
+
+        assertThat(unit.sample(request), is(true));
+        assertThat(unit.sample(request), is(false));
+    }
+
+}
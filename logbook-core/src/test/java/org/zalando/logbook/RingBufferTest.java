@@ -0,0 +1,166 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public final class RingBufferTest {
+
+    @Test
+    public void shouldUseAtLeastTwoSlots() {
+        final RingBuffer<String> unit = new RingBuffer<>(1);
+
+        assertThat(unit.capacity(), is(2));
+        assertThat(unit.offer("a"), is(true));
+        assertThat(unit.offer("b"), is(true));
+        assertThat(unit.offer("c"), is(false));
+        assertThat(unit.poll(), is("a"));
+        assertThat(unit.poll(), is("b"));
+        assertThat(unit.poll(), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTooLargeCapacity() {
+        new RingBuffer<>((1 << 30) + 1);
+    }
+
+    @Test
+    public void shouldWrapAround() {
+        final RingBuffer<String> unit = new RingBuffer<>(2);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(unit.offer("a" + i), is(true));
+            assertThat(unit.offer("b" + i), is(true));
+            assertThat(unit.poll(), is("a" + i));
+            assertThat(unit.poll(), is("b" + i));
+        }
+    }
+
+    @Test
+    public void shouldEvictOldestElements() {
+        final RingBuffer<String> unit = new RingBuffer<>(2);
+        unit.offer("a");
+        unit.offer("b");
+
+        assertThat(unit.force("c"), is(1));
+        assertThat(unit.poll(), is("b"));
+        assertThat(unit.poll(), is("c"));
+    }
+
+    @Test
+    public void shouldNotCountElementsTakenByConcurrentConsumer() {
+        // pretends to be full once, but a consumer drained the buffer in the meantime
+        final ScriptedRingBuffer unit = new ScriptedRingBuffer(2);
+        unit.staleTail = 2L;
+
+        assertThat(unit.force("a"), is(0));
+        assertThat(unit.poll(), is("a"));
+    }
+
+    @Test
+    public void shouldRetryOfferAfterFailedUpdate() {
+        final ScriptedRingBuffer unit = new ScriptedRingBuffer(2);
+        unit.failTailUpdate = true;
+
+        assertThat(unit.offer("a"), is(true));
+        assertThat(unit.poll(), is("a"));
+    }
+
+    @Test
+    public void shouldRetryOfferAfterStaleRead() {
+        final ScriptedRingBuffer unit = new ScriptedRingBuffer(2);
+        unit.offer("a");
+        unit.staleTail = 0L;
+
+        assertThat(unit.offer("b"), is(true));
+        assertThat(unit.poll(), is("a"));
+        assertThat(unit.poll(), is("b"));
+    }
+
+    @Test
+    public void shouldRetryPollAfterFailedUpdate() {
+        final ScriptedRingBuffer unit = new ScriptedRingBuffer(2);
+        unit.offer("a");
+        unit.failHeadUpdate = true;
+
+        assertThat(unit.poll(), is("a"));
+    }
+
+    @Test
+    public void shouldRetryPollAfterStaleRead() {
+        final ScriptedRingBuffer unit = new ScriptedRingBuffer(2);
+        unit.offer("a");
+        unit.offer("b");
+        unit.poll();
+        unit.staleHead = 0L;
+
+        assertThat(unit.poll(), is("b"));
+    }
+
+    /**
+     * Simulates interference of other threads by returning a stale position or failing an update once.
+     */
+    private static final class ScriptedRingBuffer extends RingBuffer<String> {
+
+        private Long staleHead;
+        private Long staleTail;
+        private boolean failHeadUpdate;
+        private boolean failTailUpdate;
+
+        private ScriptedRingBuffer(final int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        long readHead() {
+            final Long stale = staleHead;
+            staleHead = null;
+            return stale == null ? super.readHead() : stale;
+        }
+
+        @Override
+        boolean updateHead(final long expect, final long update) {
+            final boolean fail = failHeadUpdate;
+            failHeadUpdate = false;
+            return !fail && super.updateHead(expect, update);
+        }
+
+        @Override
+        long readTail() {
+            final Long stale = staleTail;
+            staleTail = null;
+            return stale == null ? super.readTail() : stale;
+        }
+
+        @Override
+        boolean updateTail(final long expect, final long update) {
+            final boolean fail = failTailUpdate;
+            failTailUpdate = false;
+            return !fail && super.updateTail(expect, update);
+        }
+
+    }
+
+}
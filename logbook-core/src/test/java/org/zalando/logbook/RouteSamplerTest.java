@@ -0,0 +1,54 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class RouteSamplerTest {
+
+    private final Sampler unit = new RouteSampler(request -> request.getRequestUri().getPath(),
+            () -> new RateLimitingSampler(1, () -> 0));
+
+    @Test
+    public void shouldLimitEachRouteIndependently() {
+        final RawHttpRequest first = request("/first");
+        final RawHttpRequest second = request("/second");
+
+        assertThat(unit.sample(first), is(true));
+        assertThat(unit.sample(first), is(false));
+        assertThat(unit.sample(second), is(true));
+        assertThat(unit.sample(second), is(false));
+    }
+
+    private static RawHttpRequest request(final String path) {
+        final RawHttpRequest request = mock(RawHttpRequest.class);
+        when(request.getRequestUri()).thenReturn(URI.create("http://localhost" + path));
+        return request;
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.zalando.logbook;
+
+/*
+ * #%L
+ * Logbook: Core
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class SamplerTest {
+
+    private final RawHttpRequest request = mock(RawHttpRequest.class);
+
+    @Test
+    public void shouldAlwaysSample() {
+        assertThat(Sampler.always().sample(request), is(true));
+    }
+
+    @Test
+    public void shouldSampleEverythingWithRatioOfOne() {
+        final Sampler unit = Sampler.ratio(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(unit.sample(request), is(true));
+        }
+    }
+
+    @Test
+    public void shouldSampleNothingWithRatioOfZero() {
+        final Sampler unit = Sampler.ratio(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(unit.sample(request), is(false));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeRatio() {
+        Sampler.ratio(-0.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRatioAboveOne() {
+        Sampler.ratio(1.1);
+    }
+
+    @Test
+    public void shouldLimitRate() {
+        final Sampler unit = Sampler.rate(1);
+
+        assertThat(unit.sample(request), is(true));
+    }
+
+    @Test
+    public void shouldLimitRatePerRoute() {
+        when(request.getRequestUri()).thenReturn(URI.create("http://localhost/"));
+        final Sampler unit = Sampler.perRoute(request -> request.getRequestUri().getPath(), 1);
+
+        assertThat(unit.sample(request), is(true));
+    }
+
+}
@@ -25,9 +25,12 @@ import org.junit.Test;
 import org.junit.contrib.java.lang.system.SystemOutRule;
 import org.zalando.logbook.DefaultLogbook.SimplePrecorrelation;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 
+import static com.google.common.base.Strings.repeat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -84,4 +87,58 @@ public final class StreamHttpLogWriterTest {
         assertThat(stdout.getLog(), is("bar\n"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldWriteRequestCharactersToStream() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CharSequenceHttpLogWriter unit = new StreamHttpLogWriter(new PrintStream(output), StandardCharsets.UTF_8);
+
+        unit.writeRequest("1", new StringBuilder("f\u00f6\u00f6"));
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8),
+                is("f\u00f6\u00f6" + System.lineSeparator()));
+    }
+
+    @Test
+    public void shouldWriteResponseCharactersToStream() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CharSequenceHttpLogWriter unit = new StreamHttpLogWriter(new PrintStream(output), StandardCharsets.UTF_8);
+
+        unit.writeResponse("1", new StringBuilder("bar"));
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8), is("bar" + System.lineSeparator()));
+    }
+
+    @Test
+    public void shouldWriteMessagesLargerThanBuffer() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CharSequenceHttpLogWriter unit = new StreamHttpLogWriter(new PrintStream(output), StandardCharsets.UTF_8);
+        final String message = repeat("\u00e4", 10_000);
+
+        unit.writeRequest("1", message);
+        unit.writeRequest("2", message);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8),
+                is(message + System.lineSeparator() + message + System.lineSeparator()));
+    }
+
+    @Test
+    public void shouldWriteCharactersWithEncodingOfStream() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final CharSequenceHttpLogWriter unit = new StreamHttpLogWriter(new PrintStream(output, true, "UTF-16"));
+
+        unit.writeRequest("1", new StringBuilder("f\u00f6\u00f6"));
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_16),
+                is("f\u00f6\u00f6" + System.lineSeparator()));
+    }
+
+    @Test
+    public void shouldWriteCharactersToStdoutByDefault() throws IOException {
+        final CharSequenceHttpLogWriter unit = new StreamHttpLogWriter();
+
+        unit.writeRequest("1", new StringBuilder("foo"));
+
+        assertThat(stdout.getLog(), is("foo\n"));
+    }
+
+}
@@ -24,7 +24,7 @@ import org.zalando.logbook.Logbook;
 
 final class Attributes {
     
-    static final String CORRELATOR = Logbook.class.getName() + ".CORRELATOR";
+    static final String REQUEST = Logbook.class.getName() + ".REQUEST";
 
     Attributes() {
         // package private so we can trick code coverage
@@ -0,0 +1,130 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Keeps the beginning of a body, up to the maximum body size, and counts the rest.
+ */
+final class BodyCapture {
+
+    private final int maxBodySize;
+    private ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+    /**
+     * Number of bytes seen, including the ones that exceeded the maximum body size.
+     */
+    private long size;
+
+    BodyCapture(final int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    void write(final int b) {
+        if (size < maxBodySize) {
+            output.write(b);
+        }
+
+        size++;
+    }
+
+    void write(final byte[] b, final int off, final int len) {
+        final long remaining = maxBodySize - size;
+
+        if (remaining > 0) {
+            output.write(b, off, (int) Math.min(len, remaining));
+        }
+
+        size += len;
+    }
+
+    /**
+     * Captures the remaining bytes of the given buffer, without consuming them.
+     */
+    void write(final ByteBuffer buffer) {
+        final int len = buffer.remaining();
+        final int captured = (int) Math.max(0, Math.min(len, maxBodySize - size));
+
+        if (buffer.hasArray()) {
+            output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), captured);
+        } else if (captured > 0) {
+            final byte[] bytes = new byte[captured];
+            buffer.duplicate().get(bytes);
+            output.write(bytes);
+        }
+
+        size += len;
+    }
+
+    /**
+     * Captures the given region of the channel, without changing its position.
+     */
+    void write(final FileChannel channel, final long position, final long count) throws IOException {
+        final int captured = (int) Math.max(0, Math.min(count, maxBodySize - size));
+        final ByteBuffer buffer = ByteBuffer.allocate(captured);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+
+        output.write(buffer.array(), 0, buffer.position());
+        size += count;
+    }
+
+    /**
+     * Starts over, e.g. because the body is being sent again.
+     */
+    void reset() {
+        this.output = ByteStreams.newDataOutput();
+        this.size = 0;
+    }
+
+    /**
+     * Copies what was captured so far, e.g. to hand it over to another thread while this one keeps capturing.
+     */
+    BodyCapture snapshot() {
+        final BodyCapture snapshot = new BodyCapture(maxBodySize);
+        snapshot.output.write(getBody());
+        snapshot.size = size;
+        return snapshot;
+    }
+
+    byte[] getBody() {
+        return output.toByteArray();
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    boolean isTruncated() {
+        return size > maxBodySize;
+    }
+
+}
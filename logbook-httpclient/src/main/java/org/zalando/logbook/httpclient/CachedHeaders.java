@@ -0,0 +1,93 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimap;
+import org.apache.http.Header;
+import org.apache.http.HttpMessage;
+import org.apache.http.entity.ContentType;
+
+import javax.annotation.Nullable;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Views of a message's headers, computed once when first asked for, since formatters and obfuscators ask several
+ * times per message.
+ */
+final class CachedHeaders {
+
+    private final HttpMessage message;
+
+    /**
+     * Null until somebody asks for them.
+     */
+    @Nullable
+    private Multimap<String, String> headers;
+
+    /**
+     * Null until somebody asks for it, empty if there is none.
+     */
+    @Nullable
+    private String contentType;
+
+    /**
+     * Null until somebody asks for it.
+     */
+    @Nullable
+    private Charset charset;
+
+    CachedHeaders(final HttpMessage message) {
+        this.message = message;
+    }
+
+    Multimap<String, String> getHeaders() {
+        if (headers == null) {
+            final ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+
+            for (final Header header : message.getAllHeaders()) {
+                builder.put(header.getName(), header.getValue());
+            }
+
+            this.headers = builder.build();
+        }
+        return headers;
+    }
+
+    String getContentType() {
+        if (contentType == null) {
+            @Nullable final Header header = message.getFirstHeader("Content-Type");
+            this.contentType = header == null ? "" : header.getValue();
+        }
+        return contentType;
+    }
+
+    Charset getCharset() {
+        if (charset == null) {
+            final String contentType = getContentType();
+            @Nullable final Charset parsed = contentType.isEmpty() ? null : ContentType.parse(contentType).getCharset();
+            this.charset = parsed == null ? StandardCharsets.UTF_8 : parsed;
+        }
+        return charset;
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves the local address once, on first use, and refreshes it in the background whenever it got older than the
+ * given period, so that only the very first request waits for it. Falls back to the last known address, or the
+ * loopback address if there is none, whenever resolving fails.
+ */
+final class CachedLocalhost implements Localhost {
+
+    @VisibleForTesting
+    static final String FALLBACK = "127.0.0.1";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedLocalhost.class);
+
+    /**
+     * The local address is the same for every client. Refreshes borrow a thread of the common pool, rather than
+     * owning one that nobody could stop, e.g. when a web application is redeployed.
+     */
+    static final Localhost SHARED = new CachedLocalhost(Localhost.resolve(), ForkJoinPool.commonPool(),
+            Duration.ofMinutes(5), Ticker.systemTicker());
+
+    private final Localhost localhost;
+    private final Executor executor;
+    private final long period;
+    private final Ticker ticker;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * Null until somebody asks for it the first time.
+     */
+    @Nullable
+    private volatile String address;
+
+    private volatile long resolved;
+
+    @VisibleForTesting
+    CachedLocalhost(final Localhost localhost, final Executor executor, final Duration period, final Ticker ticker) {
+        this.localhost = localhost;
+        this.executor = executor;
+        this.period = period.toNanos();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public String getAddress() {
+        @Nullable final String current = address;
+
+        if (current == null) {
+            return resolve();
+        }
+
+        if (ticker.read() - resolved >= period && refreshing.compareAndSet(false, true)) {
+            refreshInBackground();
+        }
+
+        return current;
+    }
+
+    private synchronized String resolve() {
+        if (address == null) {
+            refresh();
+        }
+        return address;
+    }
+
+    private void refreshInBackground() {
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // the next request will try again
+            refreshing.set(false);
+            LOG.debug("Unable to refresh local address in the background", e);
+        }
+    }
+
+    private void refresh() {
+        try {
+            this.address = localhost.getAddress();
+        } catch (final UnknownHostException | RuntimeException e) {
+            if (address == null) {
+                this.address = FALLBACK;
+            }
+            LOG.debug("Unable to resolve local address, using {}", address, e);
+        } finally {
+            // failures are retried after the same period, rather than on every request
+            this.resolved = ticker.read();
+        }
+    }
+
+}
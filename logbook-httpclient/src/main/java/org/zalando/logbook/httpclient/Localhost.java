@@ -35,4 +35,11 @@ interface Localhost {
         };
     }
 
+    /**
+     * @return a localhost that resolves once, on first use, and refreshes in the background afterwards
+     */
+    static Localhost cached() {
+        return CachedLocalhost.SHARED;
+    }
+
 }
@@ -0,0 +1,130 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.zalando.logbook.Logbook;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decorates an asynchronous client and captures bodies from the chunks that are being sent and received, rather than
+ * from their entities. Requests are written once they were sent and responses once they are complete, both on a
+ * separate thread, so that the I/O reactor never waits for formatters or writers.
+ */
+public final class LogbookHttpAsyncClient extends CloseableHttpAsyncClient {
+
+    private final CloseableHttpAsyncClient client;
+    private final Logbook logbook;
+    private final Localhost localhost;
+    private final int maxBodySize;
+    private final Executor executor;
+
+    /**
+     * Null unless we created the executor ourselves, in which case we shut it down as well.
+     */
+    @Nullable
+    private final ExecutorService owned;
+
+    public LogbookHttpAsyncClient(final CloseableHttpAsyncClient client, final Logbook logbook) {
+        this(client, logbook, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per request and response body; bodies are passed on
+     *                    untouched, no matter how large they are
+     */
+    public LogbookHttpAsyncClient(final CloseableHttpAsyncClient client, final Logbook logbook,
+            final int maxBodySize) {
+        this(client, logbook, Localhost.cached(), maxBodySize, Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("logbook-httpclient-%d").setDaemon(true).build()), true);
+    }
+
+    /**
+     * @param executor writes requests and responses once they are complete; must not run them on the calling thread,
+     *                 which is the I/O reactor's
+     */
+    public LogbookHttpAsyncClient(final CloseableHttpAsyncClient client, final Logbook logbook,
+            final int maxBodySize, final Executor executor) {
+        this(client, logbook, Localhost.cached(), maxBodySize, executor, false);
+    }
+
+    @VisibleForTesting
+    LogbookHttpAsyncClient(final CloseableHttpAsyncClient client, final Logbook logbook, final Localhost localhost,
+            final int maxBodySize, final Executor executor, final boolean owned) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        this.client = client;
+        this.logbook = logbook;
+        this.localhost = localhost;
+        this.maxBodySize = maxBodySize;
+        this.executor = executor;
+        this.owned = owned ? (ExecutorService) executor : null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return client.isRunning();
+    }
+
+    @Override
+    public void start() {
+        client.start();
+    }
+
+    @Override
+    public <T> Future<T> execute(final HttpAsyncRequestProducer requestProducer,
+            final HttpAsyncResponseConsumer<T> responseConsumer, final HttpContext context,
+            final FutureCallback<T> callback) {
+
+        final TeeRequestProducer producer = new TeeRequestProducer(requestProducer, logbook, localhost, maxBodySize,
+                executor);
+        final TeeResponseConsumer<T> consumer = new TeeResponseConsumer<>(responseConsumer, producer::write,
+                maxBodySize, executor);
+
+        return client.execute(producer, consumer, context, callback);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            client.close();
+        } finally {
+            if (owned != null) {
+                // pending exchanges still get written
+                owned.shutdown();
+            }
+        }
+    }
+
+}
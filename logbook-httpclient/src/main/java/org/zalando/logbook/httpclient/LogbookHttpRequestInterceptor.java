@@ -25,37 +25,53 @@ import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.protocol.HttpContext;
-import org.zalando.logbook.Correlator;
 import org.zalando.logbook.Logbook;
 
 import java.io.IOException;
-import java.util.Optional;
-import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
 
 public final class LogbookHttpRequestInterceptor implements HttpRequestInterceptor {
 
     private final Logbook logbook;
     private final Localhost localhost;
+    private final int maxBodySize;
 
     public LogbookHttpRequestInterceptor(Logbook logbook) {
-        this(logbook, Localhost.resolve());
+        this(logbook, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per request body; bodies are sent untouched, no matter
+     *                    how large they are
+     */
+    public LogbookHttpRequestInterceptor(Logbook logbook, int maxBodySize) {
+        this(logbook, Localhost.cached(), maxBodySize);
     }
 
     @VisibleForTesting
     LogbookHttpRequestInterceptor(Logbook logbook, Localhost localhost) {
+        this(logbook, localhost, Integer.MAX_VALUE);
+    }
+
+    @VisibleForTesting
+    LogbookHttpRequestInterceptor(Logbook logbook, Localhost localhost, int maxBodySize) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
         this.logbook = logbook;
         this.localhost = localhost;
+        this.maxBodySize = maxBodySize;
     }
 
     @Override
     public void process(final HttpRequest httpRequest, final HttpContext context) throws HttpException, IOException {
-        final Request request = new Request(httpRequest, localhost);
-        final Optional<Correlator> correlator = logbook.write(request);
-        correlator.ifPresent(writeCorrelator(context));
-    }
+        final Request request = new Request(httpRequest, localhost, maxBodySize);
+        final PendingRequest pending = new PendingRequest(logbook, request);
+        context.setAttribute(Attributes.REQUEST, pending);
 
-    private Consumer<Correlator> writeCorrelator(final HttpContext context) {
-        return correlator -> context.setAttribute(Attributes.CORRELATOR, correlator);
+        // requests with a body are complete once it was sent
+        if (!request.captureBody((body, size) -> pending.write())) {
+            pending.write();
+        }
     }
 
 }
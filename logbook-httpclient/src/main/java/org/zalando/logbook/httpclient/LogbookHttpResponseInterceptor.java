@@ -20,29 +20,66 @@ package org.zalando.logbook.httpclient;
  * #L%
  */
 
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.protocol.HttpContext;
 import org.zalando.logbook.Correlator;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Logs responses once the client is done reading their body, i.e. once it was read until the end or its stream was
+ * closed, e.g. by {@link org.apache.http.util.EntityUtils#consume(HttpEntity)}. Responses without a body are logged
+ * right away. Closing a {@link org.apache.http.client.methods.CloseableHttpResponse} without touching its body doesn't
+ * count as reading it, since the client never tells its entity about it, hence such responses are not logged.
+ */
 public final class LogbookHttpResponseInterceptor implements HttpResponseInterceptor {
 
+    private final int maxBodySize;
+
+    public LogbookHttpResponseInterceptor() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per response body; bodies are passed on untouched, no
+     *                    matter how large they are
+     */
+    public LogbookHttpResponseInterceptor(final int maxBodySize) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        this.maxBodySize = maxBodySize;
+    }
+
     @Override
     public void process(final HttpResponse original, final HttpContext context) throws HttpException, IOException {
         final Optional<Correlator> correlator = getCorrelator(context);
         
         if (correlator.isPresent()) {
-            correlator.get().write(new Response(original));
+            @Nullable final HttpEntity entity = original.getEntity();
+
+            if (entity == null || entity.getContentLength() == 0) {
+                // there is nothing to wait for, and nobody might ever read an empty body
+                correlator.get().write(new Response(original));
+            } else {
+                final HttpResponse snapshot = Response.snapshot(original);
+
+                // the response is written once the consumer is done reading it
+                original.setEntity(new TeeEntity(entity, new BodyCapture(maxBodySize), (body, size) ->
+                        correlator.get().write(new Response(snapshot, body, size))));
+            }
         }
     }
 
-    private Optional<Correlator> getCorrelator(HttpContext context) {
-        return Optional.ofNullable(context.getAttribute(Attributes.CORRELATOR))
-                .map(Correlator.class::cast);
+    private Optional<Correlator> getCorrelator(final HttpContext context) throws IOException {
+        @Nullable final PendingRequest request = (PendingRequest) context.getAttribute(Attributes.REQUEST);
+        // written already, unless its body was never sent, e.g. because the server refused to continue
+        return request == null ? Optional.empty() : request.write();
     }
 
 }
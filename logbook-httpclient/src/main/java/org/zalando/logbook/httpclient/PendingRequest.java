@@ -0,0 +1,59 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A request that is written once it's complete, i.e. once the client sent its body. If that never happens, it's
+ * written when the response arrives, so that neither of them gets lost.
+ */
+final class PendingRequest {
+
+    private final Logbook logbook;
+    private final Request request;
+
+    private boolean written;
+    private Optional<Correlator> correlator = Optional.empty();
+
+    PendingRequest(final Logbook logbook, final Request request) {
+        this.logbook = logbook;
+        this.request = request;
+    }
+
+    /**
+     * Writes the request, unless it was written already.
+     *
+     * @return the correlator for its response, if the request was logged
+     */
+    Optional<Correlator> write() throws IOException {
+        if (!written) {
+            this.written = true;
+            this.correlator = logbook.write(request);
+        }
+        return correlator;
+    }
+
+}
@@ -20,27 +20,19 @@ package org.zalando.logbook.httpclient;
  * #L%
  */
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.io.ByteStreams;
-import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpRequest;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.ContentType;
 import org.zalando.logbook.RawHttpRequest;
 
-import java.io.IOException;
-import java.io.InputStream;
+import javax.annotation.Nullable;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Optional;
 
 import static java.util.stream.Collectors.toMap;
 
@@ -48,12 +40,32 @@ final class Request implements RawHttpRequest, org.zalando.logbook.HttpRequest {
 
     private final HttpRequest request;
     private final Localhost localhost;
-    
-    private byte[] body;
+    private final int maxBodySize;
+    private final CachedHeaders headers;
+
+    /**
+     * Null until the body is captured and unless there is one. Captures the body while the client sends it.
+     */
+    @Nullable
+    private BodyCapture capture;
 
     Request(final HttpRequest request, final Localhost localhost) {
+        this(request, localhost, Integer.MAX_VALUE);
+    }
+
+    Request(final HttpRequest request, final Localhost localhost, final int maxBodySize) {
         this.request = request;
         this.localhost = localhost;
+        this.maxBodySize = maxBodySize;
+        this.headers = new CachedHeaders(request);
+    }
+
+    /**
+     * @param capture captures the body while somebody else, e.g. a request producer, sends it
+     */
+    Request(final HttpRequest request, final Localhost localhost, final BodyCapture capture) {
+        this(request, localhost, Integer.MAX_VALUE);
+        this.capture = capture;
     }
 
     @Override
@@ -83,50 +95,65 @@ final class Request implements RawHttpRequest, org.zalando.logbook.HttpRequest {
 
     @Override
     public Multimap<String, String> getHeaders() {
-        final ListMultimap<String, String> map = ArrayListMultimap.create();
-
-        for (Header header : request.getAllHeaders()) {
-            map.put(header.getName(), header.getValue());
-        }
-
-        return map;
+        return headers.getHeaders();
     }
 
     @Override
     public String getContentType() {
-        return Optional.of(request)
-                .map(request -> request.getFirstHeader("Content-Type"))
-                .map(Header::getValue)
-                .orElse("");
+        return headers.getContentType();
     }
 
     @Override
     public Charset getCharset() {
-        return Optional.of(request)
-                .map(request -> request.getFirstHeader("Content-Type"))
-                .map(Header::getValue)
-                .map(ContentType::parse)
-                .map(ContentType::getCharset)
-                .orElse(StandardCharsets.UTF_8);
+        return headers.getCharset();
     }
 
     @Override
     public byte[] getBody() {
-        return body;
+        // whatever the client sent, since requests are written once their body was sent
+        return capture == null ? new byte[0] : capture.getBody();
     }
 
     @Override
-    public org.zalando.logbook.HttpRequest withBody() throws IOException {
-        if (request instanceof HttpEntityEnclosingRequest) {
-            final HttpEntityEnclosingRequest foo = (HttpEntityEnclosingRequest) request;
-            final InputStream content = foo.getEntity().getContent();
-            this.body = ByteStreams.toByteArray(content);
-            foo.setEntity(new ByteArrayEntity(body));
-        } else {
-            this.body = new byte[0];
-        }
-        
+    public boolean isTruncated() {
+        return capture != null && capture.isTruncated();
+    }
+
+    @Override
+    public long getBodySize() {
+        return capture == null ? 0 : capture.getSize();
+    }
+
+    @Override
+    public org.zalando.logbook.HttpRequest withBody() {
+        // captured while the client sends it, see captureBody(..)
         return this;
     }
 
+    /**
+     * Captures the body, if there is one, while the client sends it, which keeps non-repeatable and chunked entities
+     * intact.
+     *
+     * @param listener told once the body was sent, including attempts that failed half way
+     * @return whether there is a body to wait for, i.e. whether the listener will be told about it
+     */
+    boolean captureBody(final TeeEntity.Listener listener) {
+        @Nullable final HttpEntity original = getEntity();
+
+        if (capture != null || original == null) {
+            return false;
+        }
+
+        this.capture = new BodyCapture(maxBodySize);
+        ((HttpEntityEnclosingRequest) request).setEntity(new TeeEntity(original, capture, listener));
+        return true;
+    }
+
+    @Nullable
+    private HttpEntity getEntity() {
+        return request instanceof HttpEntityEnclosingRequest ?
+                ((HttpEntityEnclosingRequest) request).getEntity() :
+                null;
+    }
+
 }
@@ -20,33 +20,46 @@ package org.zalando.logbook.httpclient;
  * #L%
  */
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.io.ByteStreams;
-import org.apache.http.Header;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
 import org.zalando.logbook.RawHttpResponse;
 
-import javax.annotation.Nullable;
-import java.io.IOException;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Optional;
 
 import static java.util.stream.Collectors.toMap;
 
 final class Response implements RawHttpResponse, org.zalando.logbook.HttpResponse {
 
     private final HttpResponse response;
-    private byte[] body;
+    private final byte[] body;
+    private final long size;
+    private final CachedHeaders headers;
 
     Response(final HttpResponse response) {
+        this(response, new byte[0], 0);
+    }
+
+    /**
+     * @param body the captured body, which may be cut short
+     * @param size the size of the complete body
+     */
+    Response(final HttpResponse response, final byte[] body, final long size) {
         this.response = response;
+        this.body = body;
+        this.size = size;
+        this.headers = new CachedHeaders(response);
+    }
+
+    /**
+     * @return a copy of the given response's status line and headers as they are now, before e.g. content decoding
+     * changes them
+     */
+    static HttpResponse snapshot(final HttpResponse response) {
+        final HttpResponse snapshot = new BasicHttpResponse(response.getStatusLine());
+        snapshot.setHeaders(response.getAllHeaders());
+        return snapshot;
     }
 
     @Override
@@ -56,31 +69,17 @@ final class Response implements RawHttpResponse, org.zalando.logbook.HttpRespons
 
     @Override
     public Multimap<String, String> getHeaders() {
-        final ListMultimap<String, String> map = ArrayListMultimap.create();
-
-        for (Header header : response.getAllHeaders()) {
-            map.put(header.getName(), header.getValue());
-        }
-
-        return map;
+        return headers.getHeaders();
     }
 
     @Override
     public String getContentType() {
-        return Optional.of(response)
-                .map(request -> request.getFirstHeader("Content-Type"))
-                .map(Header::getValue)
-                .orElse("");
+        return headers.getContentType();
     }
 
     @Override
     public Charset getCharset() {
-        return Optional.of(response)
-                .map(request -> request.getFirstHeader("Content-Type"))
-                .map(Header::getValue)
-                .map(ContentType::parse)
-                .map(ContentType::getCharset)
-                .orElse(StandardCharsets.UTF_8);
+        return headers.getCharset();
     }
 
     @Override
@@ -89,17 +88,18 @@ final class Response implements RawHttpResponse, org.zalando.logbook.HttpRespons
     }
 
     @Override
-    public org.zalando.logbook.HttpResponse withBody() throws IOException {
-        @Nullable final HttpEntity entity = response.getEntity();
-        
-        if (entity == null) {
-            this.body = new byte[0];
-            return this;
-        }
-        
-        this.body = ByteStreams.toByteArray(entity.getContent());
-        response.setEntity(new ByteArrayEntity(body));
-        
+    public boolean isTruncated() {
+        return size > body.length;
+    }
+
+    @Override
+    public long getBodySize() {
+        return size;
+    }
+
+    @Override
+    public org.zalando.logbook.HttpResponse withBody() {
+        // captured while the consumer read it
         return this;
     }
 
@@ -0,0 +1,71 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Captures whatever the consumer reads from the channel, chunk by chunk.
+ */
+final class TeeContentDecoder implements ContentDecoder {
+
+    private final ContentDecoder decoder;
+    private final BodyCapture capture;
+
+    TeeContentDecoder(final ContentDecoder decoder, final BodyCapture capture) {
+        this.decoder = decoder;
+        this.capture = capture;
+    }
+
+    /**
+     * @return a tee that keeps supporting zero-copy file transfers, if the given decoder does
+     */
+    static ContentDecoder tee(final ContentDecoder decoder, final BodyCapture capture) {
+        return decoder instanceof FileContentDecoder ?
+                new TeeFileContentDecoder((FileContentDecoder) decoder, capture) :
+                new TeeContentDecoder(decoder, capture);
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        final int position = dst.position();
+        final int read = decoder.read(dst);
+
+        if (read > 0) {
+            final ByteBuffer chunk = dst.duplicate();
+            chunk.limit(position + read);
+            chunk.position(position);
+            capture.write(chunk);
+        }
+
+        return read;
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return decoder.isCompleted();
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Captures whatever actually made it into the channel, chunk by chunk.
+ */
+final class TeeContentEncoder implements ContentEncoder {
+
+    private final ContentEncoder encoder;
+    private final BodyCapture capture;
+
+    TeeContentEncoder(final ContentEncoder encoder, final BodyCapture capture) {
+        this.encoder = encoder;
+        this.capture = capture;
+    }
+
+    /**
+     * @return a tee that keeps supporting zero-copy file transfers, if the given encoder does
+     */
+    static ContentEncoder tee(final ContentEncoder encoder, final BodyCapture capture) {
+        return encoder instanceof FileContentEncoder ?
+                new TeeFileContentEncoder((FileContentEncoder) encoder, capture) :
+                new TeeContentEncoder(encoder, capture);
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        final ByteBuffer chunk = src.duplicate();
+        final int written = encoder.write(src);
+
+        if (written > 0) {
+            chunk.limit(chunk.position() + written);
+            capture.write(chunk);
+        }
+
+        return written;
+    }
+
+    @Override
+    public void complete() throws IOException {
+        encoder.complete();
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return encoder.isCompleted();
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Captures the body while it's being read or written, rather than reading it upfront, and hands it over once it's
+ * complete, i.e. once the content was either read until the end or closed or once it was written.
+ */
+final class TeeEntity extends HttpEntityWrapper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TeeEntity.class);
+
+    private final BodyCapture capture;
+    private final Listener listener;
+
+    private boolean teeing;
+    private boolean completed;
+
+    TeeEntity(final HttpEntity entity, final BodyCapture capture, final Listener listener) {
+        super(entity);
+        this.capture = capture;
+        this.listener = listener;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        final InputStream content = super.getContent();
+
+        if (teeing) {
+            // repeatable entities may be read more than once, but only the first read counts
+            return content;
+        }
+
+        this.teeing = true;
+        return new TeeInputStream(content);
+    }
+
+    @Override
+    public void writeTo(final OutputStream stream) throws IOException {
+        // repeatable entities are written again when requests are retried, of which only the last attempt counts
+        capture.reset();
+
+        try {
+            super.writeTo(new TeeOutputStream(stream));
+        } finally {
+            // a failed attempt is still worth knowing about, with whatever was sent until then
+            complete();
+        }
+    }
+
+    private void complete() {
+        if (!completed) {
+            this.completed = true;
+
+            try {
+                listener.onComplete(capture.getBody(), capture.getSize());
+            } catch (final IOException | RuntimeException e) {
+                // logging must neither break the actual exchange nor hide why it failed
+                LOG.warn("Unable to write captured body", e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * @param body the captured body, i.e. at most the maximum body size
+         * @param size the size of the complete body
+         */
+        void onComplete(final byte[] body, final long size) throws IOException;
+
+    }
+
+    private final class TeeInputStream extends FilterInputStream {
+
+        private TeeInputStream(final InputStream content) {
+            super(content);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+
+            if (b == -1) {
+                complete();
+            } else {
+                capture.write(b);
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = super.read(b, off, len);
+
+            if (read == -1) {
+                complete();
+            } else {
+                capture.write(b, off, read);
+            }
+
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            // skipped bytes are still part of the body
+            final byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 4096)];
+            long skipped = 0;
+
+            while (skipped < n) {
+                final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+
+                if (read == -1) {
+                    break;
+                }
+
+                skipped += read;
+            }
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            // re-reading would capture bytes twice
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                complete();
+            }
+        }
+
+    }
+
+    private final class TeeOutputStream extends FilterOutputStream {
+
+        private TeeOutputStream(final OutputStream stream) {
+            super(stream);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+    }
+
+}
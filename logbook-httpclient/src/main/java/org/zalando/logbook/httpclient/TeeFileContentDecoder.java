@@ -0,0 +1,66 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.FileContentDecoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Captures whatever the consumer reads from the channel, while keeping zero-copy file transfers intact. Transferred
+ * regions are read back from the file, up to the maximum body size.
+ */
+final class TeeFileContentDecoder implements FileContentDecoder {
+
+    private final FileContentDecoder decoder;
+    private final BodyCapture capture;
+    private final TeeContentDecoder tee;
+
+    TeeFileContentDecoder(final FileContentDecoder decoder, final BodyCapture capture) {
+        this.decoder = decoder;
+        this.capture = capture;
+        this.tee = new TeeContentDecoder(decoder, capture);
+    }
+
+    @Override
+    public long transfer(final FileChannel dst, final long position, final long count) throws IOException {
+        final long transferred = decoder.transfer(dst, position, count);
+
+        if (transferred > 0) {
+            capture.write(dst, position, transferred);
+        }
+
+        return transferred;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        return tee.read(dst);
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return tee.isCompleted();
+    }
+
+}
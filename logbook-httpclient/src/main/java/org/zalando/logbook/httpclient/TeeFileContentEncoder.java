@@ -0,0 +1,71 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.FileContentEncoder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Captures whatever actually made it into the channel, while keeping zero-copy file transfers intact. Transferred
+ * regions are read back from the file, up to the maximum body size.
+ */
+final class TeeFileContentEncoder implements FileContentEncoder {
+
+    private final FileContentEncoder encoder;
+    private final BodyCapture capture;
+    private final TeeContentEncoder tee;
+
+    TeeFileContentEncoder(final FileContentEncoder encoder, final BodyCapture capture) {
+        this.encoder = encoder;
+        this.capture = capture;
+        this.tee = new TeeContentEncoder(encoder, capture);
+    }
+
+    @Override
+    public long transfer(final FileChannel src, final long position, final long count) throws IOException {
+        final long transferred = encoder.transfer(src, position, count);
+
+        if (transferred > 0) {
+            capture.write(src, position, transferred);
+        }
+
+        return transferred;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        return tee.write(src);
+    }
+
+    @Override
+    public void complete() throws IOException {
+        tee.complete();
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return tee.isCompleted();
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Captures the request body from the chunks the delegate produces, rather than from its entity, and hands the request
+ * over to the given executor once it was sent, since formatting and writing it must not happen on the I/O reactor
+ * thread.
+ */
+final class TeeRequestProducer implements HttpAsyncRequestProducer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TeeRequestProducer.class);
+
+    private final HttpAsyncRequestProducer producer;
+    private final Logbook logbook;
+    private final Localhost localhost;
+    private final int maxBodySize;
+    private final Executor executor;
+
+    private volatile BodyCapture capture;
+
+    /**
+     * Holds the generated request until it's handed over to the executor, i.e. null before and afterwards.
+     */
+    private final AtomicReference<HttpRequest> pending = new AtomicReference<>();
+
+    private volatile CompletableFuture<Optional<Correlator>> correlator =
+            CompletableFuture.completedFuture(Optional.empty());
+
+    TeeRequestProducer(final HttpAsyncRequestProducer producer, final Logbook logbook, final Localhost localhost,
+            final int maxBodySize, final Executor executor) {
+        this.producer = producer;
+        this.logbook = logbook;
+        this.localhost = localhost;
+        this.maxBodySize = maxBodySize;
+        this.executor = executor;
+        this.capture = new BodyCapture(maxBodySize);
+    }
+
+    @Override
+    public HttpHost getTarget() {
+        return producer.getTarget();
+    }
+
+    @Override
+    public HttpRequest generateRequest() throws IOException, HttpException {
+        final HttpRequest request = producer.generateRequest();
+
+        // retries generate the request again, each of which is written once it was sent
+        this.capture = new BodyCapture(maxBodySize);
+        this.correlator = new CompletableFuture<>();
+        pending.set(request);
+
+        return request;
+    }
+
+    @Override
+    public void produceContent(final ContentEncoder encoder, final IOControl ioctrl) throws IOException {
+        producer.produceContent(TeeContentEncoder.tee(encoder, capture), ioctrl);
+    }
+
+    @Override
+    public void requestCompleted(final HttpContext context) {
+        producer.requestCompleted(context);
+        write(true);
+    }
+
+    @Override
+    public void failed(final Exception ex) {
+        producer.failed(ex);
+        // with whatever was sent until then
+        write();
+    }
+
+    /**
+     * Hands the current request over to the executor, unless that happened already, e.g. because the response arrived
+     * before the request was sent completely. In that case the body is still being captured, so the executor gets a
+     * snapshot of what was sent so far.
+     *
+     * @return the correlator for its response, once the request was written
+     */
+    CompletableFuture<Optional<Correlator>> write() {
+        return write(false);
+    }
+
+    /**
+     * @param sent whether the body was sent completely, i.e. nobody captures it anymore
+     */
+    private CompletableFuture<Optional<Correlator>> write(final boolean sent) {
+        @Nullable final HttpRequest request = pending.getAndSet(null);
+        final CompletableFuture<Optional<Correlator>> correlator = this.correlator;
+
+        if (request != null) {
+            final Request snapshot = new Request(request, localhost, sent ? capture : capture.snapshot());
+            executor.execute(() -> correlator.complete(write(snapshot)));
+        }
+
+        return correlator;
+    }
+
+    private Optional<Correlator> write(final Request request) {
+        try {
+            return logbook.write(request);
+        } catch (final IOException e) {
+            LOG.warn("Unable to write request", e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return producer.isRepeatable();
+    }
+
+    @Override
+    public void resetRequest() throws IOException {
+        producer.resetRequest();
+    }
+
+    @Override
+    public void close() throws IOException {
+        producer.close();
+    }
+
+}
@@ -0,0 +1,142 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zalando.logbook.Correlator;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Captures the response body from the chunks the delegate consumes and hands the response over to the given executor
+ * once it's complete and its request was written, since formatting and writing it must not happen on the I/O reactor
+ * thread.
+ */
+final class TeeResponseConsumer<T> implements HttpAsyncResponseConsumer<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TeeResponseConsumer.class);
+
+    private final HttpAsyncResponseConsumer<T> consumer;
+    private final Supplier<CompletableFuture<Optional<Correlator>>> request;
+    private final int maxBodySize;
+    private final Executor executor;
+
+    /**
+     * Null until the response was received.
+     */
+    @Nullable
+    private volatile HttpResponse response;
+
+    private volatile BodyCapture capture;
+
+    /**
+     * @param request writes the request, unless that happened already, and provides the correlator for its response
+     */
+    TeeResponseConsumer(final HttpAsyncResponseConsumer<T> consumer,
+            final Supplier<CompletableFuture<Optional<Correlator>>> request, final int maxBodySize,
+            final Executor executor) {
+        this.consumer = consumer;
+        this.request = request;
+        this.maxBodySize = maxBodySize;
+        this.executor = executor;
+        this.capture = new BodyCapture(maxBodySize);
+    }
+
+    @Override
+    public void responseReceived(final HttpResponse response) throws IOException, HttpException {
+        this.response = Response.snapshot(response);
+        this.capture = new BodyCapture(maxBodySize);
+        consumer.responseReceived(response);
+    }
+
+    @Override
+    public void consumeContent(final ContentDecoder decoder, final IOControl ioctrl) throws IOException {
+        consumer.consumeContent(TeeContentDecoder.tee(decoder, capture), ioctrl);
+    }
+
+    @Override
+    public void responseCompleted(final HttpContext context) {
+        consumer.responseCompleted(context);
+
+        // the response may arrive before the request was sent completely, which doesn't keep it from being logged
+        final CompletableFuture<Optional<Correlator>> correlator = request.get();
+        @Nullable final HttpResponse received = response;
+
+        if (received != null) {
+            final BodyCapture capture = this.capture;
+            correlator.thenAcceptAsync(present -> present.ifPresent(c ->
+                    write(c, new Response(received, capture.getBody(), capture.getSize()))), executor);
+        }
+    }
+
+    private void write(final Correlator correlator, final Response response) {
+        try {
+            correlator.write(response);
+        } catch (final IOException e) {
+            LOG.warn("Unable to write response", e);
+        }
+    }
+
+    @Override
+    public void failed(final Exception ex) {
+        consumer.failed(ex);
+        // there is no response to write, but the request must not get lost
+        request.get();
+    }
+
+    @Override
+    public Exception getException() {
+        return consumer.getException();
+    }
+
+    @Override
+    public T getResult() {
+        return consumer.getResult();
+    }
+
+    @Override
+    public boolean isDone() {
+        return consumer.isDone();
+    }
+
+    @Override
+    public boolean cancel() {
+        return consumer.cancel();
+    }
+
+    @Override
+    public void close() throws IOException {
+        consumer.close();
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class BodyCaptureTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldCaptureUpToMaxBodySize() {
+        final BodyCapture unit = new BodyCapture(5);
+
+        unit.write('H');
+        unit.write("ello, world".getBytes(UTF_8), 0, 11);
+        unit.write('!');
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getSize(), is(13L));
+        assertThat(unit.isTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldCaptureHeapBufferWithoutConsumingIt() {
+        final BodyCapture unit = new BodyCapture(5);
+        final ByteBuffer buffer = ByteBuffer.wrap("__Hello, world!".getBytes(UTF_8), 2, 13).slice();
+
+        unit.write(buffer);
+
+        assertThat(buffer.remaining(), is(13));
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldCaptureDirectBufferWithoutConsumingIt() {
+        final BodyCapture unit = new BodyCapture(Integer.MAX_VALUE);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(13);
+        buffer.put("Hello, world!".getBytes(UTF_8)).flip();
+
+        unit.write(buffer);
+        unit.write(buffer);
+
+        assertThat(buffer.remaining(), is(13));
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello, world!Hello, world!"));
+        assertThat(unit.isTruncated(), is(false));
+    }
+
+    @Test
+    public void shouldOnlyCountDirectBufferBeyondMaxBodySize() {
+        final BodyCapture unit = new BodyCapture(0);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(13);
+
+        unit.write(buffer);
+
+        assertThat(unit.getBody().length, is(0));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldStartOver() {
+        final BodyCapture unit = new BodyCapture(Integer.MAX_VALUE);
+
+        unit.write('H');
+        unit.reset();
+
+        assertThat(unit.getBody().length, is(0));
+        assertThat(unit.getSize(), is(0L));
+    }
+
+    @Test
+    public void shouldCaptureFileRegionWithoutMovingPosition() throws IOException {
+        final BodyCapture unit = new BodyCapture(5);
+
+        try (final FileChannel channel = open("__Hello, world!")) {
+            unit.write(channel, 2, 13);
+
+            assertThat(channel.position(), is(0L));
+        }
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldCaptureFileRegionUpToEndOfFile() throws IOException {
+        final BodyCapture unit = new BodyCapture(Integer.MAX_VALUE);
+
+        try (final FileChannel channel = open("Hello")) {
+            unit.write(channel, 0, 13);
+        }
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldOnlyCountFileRegionBeyondMaxBodySize() throws IOException {
+        final BodyCapture unit = new BodyCapture(0);
+
+        try (final FileChannel channel = open("Hello, world!")) {
+            unit.write(channel, 0, 13);
+        }
+
+        assertThat(unit.getBody().length, is(0));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldTakeIndependentSnapshot() {
+        final BodyCapture unit = new BodyCapture(5);
+
+        unit.write("Hello, ".getBytes(UTF_8), 0, 7);
+        final BodyCapture snapshot = unit.snapshot();
+        unit.write("world!".getBytes(UTF_8), 0, 6);
+
+        assertThat(new String(snapshot.getBody(), UTF_8), is("Hello"));
+        assertThat(snapshot.getSize(), is(7L));
+        assertThat(snapshot.isTruncated(), is(true));
+        assertThat(unit.getSize(), is(13L));
+    }
+
+    private FileChannel open(final String content) throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(UTF_8));
+        return FileChannel.open(file, READ);
+    }
+
+}
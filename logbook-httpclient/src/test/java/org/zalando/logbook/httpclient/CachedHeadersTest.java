@@ -0,0 +1,76 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpMessage;
+import org.apache.http.message.BasicHttpRequest;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public final class CachedHeadersTest {
+
+    private final HttpMessage message = spy(new BasicHttpRequest("GET", "/"));
+    private final CachedHeaders unit = new CachedHeaders(message);
+
+    @Test
+    public void shouldComputeHeadersOnlyOnce() {
+        message.addHeader("Accept", "text/plain");
+        message.addHeader("Accept", "application/json");
+
+        assertThat(unit.getHeaders().get("Accept"), contains("text/plain", "application/json"));
+        assertThat(unit.getHeaders(), is(sameInstance(unit.getHeaders())));
+        verify(message, times(1)).getAllHeaders();
+    }
+
+    @Test
+    public void shouldParseContentTypeOnlyOnce() {
+        message.addHeader("Content-Type", "text/plain;charset=ISO-8859-1");
+
+        assertThat(unit.getContentType(), is("text/plain;charset=ISO-8859-1"));
+        assertThat(unit.getCharset(), is(ISO_8859_1));
+        assertThat(unit.getCharset(), is(ISO_8859_1));
+        verify(message, times(1)).getFirstHeader("Content-Type");
+    }
+
+    @Test
+    public void shouldDefaultToUtf8WithoutCharset() {
+        message.addHeader("Content-Type", "application/json");
+
+        assertThat(unit.getCharset(), is(UTF_8));
+    }
+
+    @Test
+    public void shouldDefaultToUtf8WithoutContentType() {
+        assertThat(unit.getContentType(), is(emptyString()));
+        assertThat(unit.getCharset(), is(UTF_8));
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class CachedLocalhostTest {
+
+    private final Localhost localhost = mock(Localhost.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final AtomicLong now = new AtomicLong();
+
+    private final CachedLocalhost unit = new CachedLocalhost(localhost, tasks::add, Duration.ofNanos(1000),
+            new Ticker() {
+                @Override
+                public long read() {
+                    return now.get();
+                }
+            });
+
+    @Test
+    public void shouldNotResolveOnCreation() throws UnknownHostException {
+        verify(localhost, never()).getAddress();
+    }
+
+    @Test
+    public void shouldResolveOnFirstUse() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1");
+
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+        verify(localhost, times(1)).getAddress();
+        assertThat(tasks, hasSize(0));
+    }
+
+    @Test
+    public void shouldFallBackToLoopbackAddress() throws UnknownHostException {
+        when(localhost.getAddress()).thenThrow(new UnknownHostException());
+
+        assertThat(unit.getAddress(), is(CachedLocalhost.FALLBACK));
+    }
+
+    @Test
+    public void shouldNotRetryOnEveryRequestIfResolvingFails() throws UnknownHostException {
+        when(localhost.getAddress()).thenThrow(new UnknownHostException());
+
+        unit.getAddress();
+        unit.getAddress();
+
+        verify(localhost, times(1)).getAddress();
+        assertThat(tasks, hasSize(0));
+    }
+
+    @Test
+    public void shouldRefreshInBackgroundOncePeriodElapsed() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1", "10.0.0.2");
+
+        unit.getAddress();
+        now.set(1000);
+
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+        assertThat(tasks, hasSize(1));
+
+        tasks.get(0).run();
+
+        assertThat(unit.getAddress(), is("10.0.0.2"));
+        assertThat(tasks, hasSize(1));
+    }
+
+    @Test
+    public void shouldRefreshOnlyOnceAtATime() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1");
+
+        unit.getAddress();
+        now.set(1000);
+        unit.getAddress();
+        unit.getAddress();
+
+        assertThat(tasks, hasSize(1));
+    }
+
+    @Test
+    public void shouldRefreshAgainAfterNextPeriod() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1", "10.0.0.2", "10.0.0.3");
+
+        unit.getAddress();
+        now.set(1000);
+        unit.getAddress();
+        tasks.get(0).run();
+        now.set(2000);
+        unit.getAddress();
+        tasks.get(1).run();
+
+        assertThat(unit.getAddress(), is("10.0.0.3"));
+    }
+
+    @Test
+    public void shouldKeepLastKnownAddressIfRefreshFails() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1").thenThrow(new UnknownHostException());
+
+        unit.getAddress();
+        now.set(1000);
+        unit.getAddress();
+        tasks.get(0).run();
+
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+    }
+
+    @Test
+    public void shouldKeepLastKnownAddressIfRefreshFailsUnexpectedly() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1").thenThrow(new SecurityException());
+
+        unit.getAddress();
+        now.set(1000);
+        unit.getAddress();
+        tasks.get(0).run();
+
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+    }
+
+    @Test
+    public void shouldTryAgainIfRefreshIsRejected() throws UnknownHostException {
+        when(localhost.getAddress()).thenReturn("10.0.0.1", "10.0.0.2");
+        final List<Runnable> accepted = new ArrayList<>();
+        final AtomicLong rejections = new AtomicLong(1);
+        final CachedLocalhost unit = new CachedLocalhost(localhost, task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException();
+            }
+            accepted.add(task);
+        }, Duration.ZERO, Ticker.systemTicker());
+
+        unit.getAddress();
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+        assertThat(unit.getAddress(), is("10.0.0.1"));
+        accepted.get(0).run();
+
+        assertThat(unit.getAddress(), is("10.0.0.2"));
+    }
+
+    @Test
+    public void shouldShareCachedLocalhost() throws UnknownHostException {
+        assertThat(Localhost.cached(), is(sameInstance(Localhost.cached())));
+        assertThat(Localhost.cached().getAddress(), matchesPattern("(\\d{1,3}\\.){3}\\d{1,3}"));
+    }
+
+}
@@ -0,0 +1,399 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class LogbookHttpAsyncClientTest {
+
+    private final HttpLogWriter writer = mock(HttpLogWriter.class);
+    private final Logbook logbook = Logbook.builder()
+            .writer(writer)
+            .build();
+
+    private final CloseableHttpAsyncClient client = mock(CloseableHttpAsyncClient.class);
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final LogbookHttpAsyncClient unit = new LogbookHttpAsyncClient(client, logbook, mock(Localhost.class),
+            Integer.MAX_VALUE, tasks::add, false);
+
+    private final HttpAsyncRequestProducer requestProducer = mock(HttpAsyncRequestProducer.class);
+    @SuppressWarnings("unchecked")
+    private final HttpAsyncResponseConsumer<String> responseConsumer = mock(HttpAsyncResponseConsumer.class);
+    private final HttpContext context = new BasicHttpContext();
+    private final IOControl ioctrl = mock(IOControl.class);
+
+    @Before
+    public void defaultBehaviour() throws Exception {
+        when(writer.isActive(any())).thenReturn(true);
+
+        final BasicHttpEntityEnclosingRequest request = new BasicHttpEntityEnclosingRequest("POST", "/");
+        request.addHeader("Content-Type", "text/plain");
+        when(requestProducer.generateRequest()).thenReturn(request);
+
+        doAnswer(invocation -> invocation.getArgumentAt(0, ContentEncoder.class)
+                .write(ByteBuffer.wrap("Hello".getBytes(UTF_8))))
+                .when(requestProducer).produceContent(any(), any());
+
+        doAnswer(invocation -> invocation.getArgumentAt(0, ContentDecoder.class).read(ByteBuffer.allocate(64)))
+                .when(responseConsumer).consumeContent(any(), any());
+    }
+
+    @Test
+    public void shouldLogExchangeOnceResponseIsComplete() throws Exception {
+        exchange();
+
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+
+        runTasks();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Precorrelation<String>> request = ArgumentCaptor.forClass(Precorrelation.class);
+        verify(writer).writeRequest(request.capture());
+        assertThat(request.getValue().getRequest(), containsString("POST / HTTP/1.1"));
+        assertThat(request.getValue().getRequest(), containsString("Hello"));
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Correlation<String, String>> response = ArgumentCaptor.forClass(Correlation.class);
+        verify(writer).writeResponse(response.capture());
+        assertThat(response.getValue().getResponse(), containsString("HTTP/1.1 200"));
+        assertThat(response.getValue().getResponse(), containsString("world"));
+    }
+
+    @Test
+    public void shouldNotLogIfInactive() throws Exception {
+        when(writer.isActive(any())).thenReturn(false);
+
+        exchange();
+        runTasks();
+
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldLogRequestOnceItWasSent() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.producer.produceContent(encoder(), ioctrl);
+
+        assertThat(tasks.isEmpty(), is(true));
+
+        execution.producer.requestCompleted(context);
+        runTasks();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Precorrelation<String>> request = ArgumentCaptor.forClass(Precorrelation.class);
+        verify(writer).writeRequest(request.capture());
+        assertThat(request.getValue().getRequest(), containsString("Hello"));
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldLogRequestOnlyOnceIfResponseArrivesEarly() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.producer.produceContent(encoder(), ioctrl);
+        execution.consumer.responseReceived(response());
+        execution.consumer.responseCompleted(context);
+        execution.producer.requestCompleted(context);
+        runTasks();
+
+        final InOrder inOrder = inOrder(writer);
+        inOrder.verify(writer).writeRequest(any());
+        inOrder.verify(writer).writeResponse(any());
+    }
+
+    @Test
+    public void shouldLogWhatWasSentUntilResponseArrivedEarly() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.producer.produceContent(encoder(), ioctrl);
+        execution.consumer.responseReceived(response());
+        execution.consumer.responseCompleted(context);
+        execution.producer.produceContent(encoder(), ioctrl);
+        execution.producer.requestCompleted(context);
+        runTasks();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Precorrelation<String>> request = ArgumentCaptor.forClass(Precorrelation.class);
+        verify(writer).writeRequest(request.capture());
+        assertThat(request.getValue().getRequest(), containsString("Hello"));
+        assertThat(request.getValue().getRequest(), not(containsString("HelloHello")));
+    }
+
+    @Test
+    public void shouldLogRequestOfFailedExchange() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.producer.produceContent(encoder(), ioctrl);
+        execution.consumer.failed(new IOException());
+        execution.producer.failed(new IOException());
+        runTasks();
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Precorrelation<String>> request = ArgumentCaptor.forClass(Precorrelation.class);
+        verify(writer).writeRequest(request.capture());
+        assertThat(request.getValue().getRequest(), containsString("Hello"));
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldLogEveryAttempt() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.producer.requestCompleted(context);
+        execution.producer.resetRequest();
+        execution.producer.generateRequest();
+        execution.producer.requestCompleted(context);
+        execution.consumer.responseReceived(response());
+        execution.consumer.responseCompleted(context);
+        runTasks();
+
+        verify(writer, times(2)).writeRequest(any());
+        verify(writer).writeResponse(any());
+    }
+
+    @Test
+    public void shouldNotLogResponseThatWasNeverReceived() throws Exception {
+        final Execution execution = execute();
+
+        execution.producer.generateRequest();
+        execution.consumer.responseCompleted(context);
+        runTasks();
+
+        verify(writer).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldSurviveFailingWriter() throws Exception {
+        doThrow(new IOException()).when(writer).writeResponse(any());
+
+        exchange();
+        runTasks();
+
+        verify(writer).writeResponse(any());
+    }
+
+    @Test
+    public void shouldNotLogResponseIfRequestCouldNotBeWritten() throws Exception {
+        doThrow(new IOException()).when(writer).writeRequest(any());
+
+        exchange();
+        runTasks();
+
+        verify(writer).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldDelegate() throws Exception {
+        final Execution execution = execute();
+        final HttpAsyncRequestProducer producer = execution.producer;
+        final HttpAsyncResponseConsumer<String> consumer = execution.consumer;
+        final Exception exception = new IOException();
+
+        final HttpHost target = HttpHost.create("localhost");
+        when(requestProducer.getTarget()).thenReturn(target);
+        when(requestProducer.isRepeatable()).thenReturn(true);
+        when(responseConsumer.getException()).thenReturn(exception);
+        when(responseConsumer.getResult()).thenReturn("Hello");
+        when(responseConsumer.isDone()).thenReturn(true);
+        when(responseConsumer.cancel()).thenReturn(true);
+        when(client.isRunning()).thenReturn(true);
+
+        assertThat(producer.getTarget(), is(target));
+        assertThat(producer.isRepeatable(), is(true));
+        producer.resetRequest();
+        producer.failed(exception);
+        producer.close();
+        assertThat(consumer.getException(), is(exception));
+        assertThat(consumer.getResult(), is("Hello"));
+        assertThat(consumer.isDone(), is(true));
+        assertThat(consumer.cancel(), is(true));
+        consumer.failed(exception);
+        consumer.close();
+        assertThat(unit.isRunning(), is(true));
+        unit.start();
+
+        verify(requestProducer).resetRequest();
+        verify(requestProducer).failed(exception);
+        verify(requestProducer).close();
+        verify(responseConsumer).failed(exception);
+        verify(responseConsumer).close();
+        verify(client).start();
+    }
+
+    @Test
+    public void shouldShutdownOwnedExecutorOnClose() throws IOException {
+        final ExecutorService executor = mock(ExecutorService.class);
+
+        new LogbookHttpAsyncClient(client, logbook, mock(Localhost.class), 0, executor, true).close();
+
+        verify(client).close();
+        verify(executor).shutdown();
+    }
+
+    @Test
+    public void shouldNotShutdownForeignExecutorOnClose() throws IOException {
+        final ExecutorService executor = mock(ExecutorService.class);
+
+        new LogbookHttpAsyncClient(client, logbook, 0, executor).close();
+
+        verify(executor, never()).shutdown();
+    }
+
+    @Test
+    public void shouldCreateOwnExecutor() throws IOException {
+        new LogbookHttpAsyncClient(client, logbook).close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySize() {
+        new LogbookHttpAsyncClient(client, logbook, -1);
+    }
+
+    private void exchange() throws Exception {
+        final Execution execution = execute();
+        final HttpAsyncRequestProducer producer = execution.producer;
+        final HttpAsyncResponseConsumer<String> consumer = execution.consumer;
+
+        final ContentDecoder decoder = mock(ContentDecoder.class);
+        when(decoder.read(any())).then(invocation -> {
+            invocation.getArgumentAt(0, ByteBuffer.class).put("world".getBytes(UTF_8));
+            return 5;
+        });
+
+        final HttpResponse response = response();
+
+        producer.generateRequest();
+        producer.produceContent(encoder(), ioctrl);
+        producer.requestCompleted(context);
+        consumer.responseReceived(response);
+        consumer.consumeContent(decoder, ioctrl);
+        consumer.responseCompleted(context);
+
+        verify(requestProducer).requestCompleted(context);
+        verify(responseConsumer).responseReceived(response);
+        verify(responseConsumer).responseCompleted(context);
+    }
+
+    private ContentEncoder encoder() throws IOException {
+        final ContentEncoder encoder = mock(ContentEncoder.class);
+        when(encoder.write(any())).then(invocation -> {
+            final ByteBuffer src = invocation.getArgumentAt(0, ByteBuffer.class);
+            final int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        });
+        return encoder;
+    }
+
+    private HttpResponse response() {
+        final HttpResponse response = new BasicHttpResponse(new ProtocolVersion("HTTP", 1, 1), 200, "OK");
+        response.addHeader("Content-Type", "text/plain");
+        return response;
+    }
+
+    private void runTasks() {
+        // tasks may schedule further tasks, e.g. responses once their request was written
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Execution execute() {
+        final FutureCallback<String> callback = mock(FutureCallback.class);
+
+        unit.execute(requestProducer, responseConsumer, context, callback);
+
+        final ArgumentCaptor<HttpAsyncRequestProducer> producer =
+                ArgumentCaptor.forClass(HttpAsyncRequestProducer.class);
+        final ArgumentCaptor<HttpAsyncResponseConsumer> consumer =
+                ArgumentCaptor.forClass(HttpAsyncResponseConsumer.class);
+        verify(client).execute(producer.capture(), consumer.capture(), eq(context), eq(callback));
+
+        return new Execution(producer.getValue(), consumer.getValue());
+    }
+
+    private static final class Execution {
+
+        private final HttpAsyncRequestProducer producer;
+        private final HttpAsyncResponseConsumer<String> consumer;
+
+        private Execution(final HttpAsyncRequestProducer producer, final HttpAsyncResponseConsumer<String> consumer) {
+            this.producer = producer;
+            this.consumer = consumer;
+        }
+
+    }
+
+}
@@ -123,7 +123,30 @@ public final class LogbookHttpInterceptorsTest {
         verify(writer, never()).writeResponse(any());
     }
 
+    @Test
+    public void shouldNotLogRequestOrResponseIfConditionRejectsRequest() throws IOException {
+        final Logbook logbook = Logbook.builder()
+                .condition(request -> !request.getRequestUri().getPath().equals("/"))
+                .writer(writer)
+                .build();
+
+        try (CloseableHttpClient client = HttpClientBuilder.create()
+                .addInterceptorFirst(new LogbookHttpRequestInterceptor(logbook))
+                .addInterceptorFirst(new LogbookHttpResponseInterceptor())
+                .build()) {
+            sendAndReceive(client);
+        }
+
+        verify(writer, never()).isActive(any());
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
     private void sendAndReceive() throws IOException {
+        sendAndReceive(client);
+    }
+
+    private void sendAndReceive(final CloseableHttpClient client) throws IOException {
         driver.addExpectation(onRequestTo("/"),
                 giveResponse("Hello, world!", "text/plain"));
 
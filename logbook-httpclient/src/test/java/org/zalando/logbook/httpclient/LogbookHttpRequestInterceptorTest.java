@@ -0,0 +1,88 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.RawHttpRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class LogbookHttpRequestInterceptorTest {
+
+    private final Logbook logbook = mock(Logbook.class);
+    private final HttpContext context = new BasicHttpContext();
+
+    private final LogbookHttpRequestInterceptor unit =
+            new LogbookHttpRequestInterceptor(logbook, mock(Localhost.class));
+
+    public LogbookHttpRequestInterceptorTest() throws IOException {
+        when(logbook.write(any())).thenReturn(Optional.of(mock(Correlator.class)));
+    }
+
+    @Test
+    public void shouldWriteRequestWithoutBodyRightAway() throws Exception {
+        unit.process(new HttpGet("/"), context);
+
+        verify(logbook).write(any());
+    }
+
+    @Test
+    public void shouldWriteRequestOnceBodyWasSent() throws Exception {
+        final HttpPost request = new HttpPost("/");
+        request.setEntity(new StringEntity("Hello, world!", UTF_8));
+
+        unit.process(request, context);
+
+        verify(logbook, never()).write(any());
+
+        request.getEntity().writeTo(new ByteArrayOutputStream());
+
+        final ArgumentCaptor<RawHttpRequest> captor = ArgumentCaptor.forClass(RawHttpRequest.class);
+        verify(logbook).write(captor.capture());
+        assertThat(captor.getValue().isStreaming(), is(false));
+        assertThat(captor.getValue().withBody().getBodyAsString(), is("Hello, world!"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySize() {
+        new LogbookHttpRequestInterceptor(logbook, -1);
+    }
+
+}
@@ -0,0 +1,157 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.HttpResponse;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.RawHttpResponse;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class LogbookHttpResponseInterceptorTest {
+
+    private final Logbook logbook = mock(Logbook.class);
+    private final Correlator correlator = mock(Correlator.class);
+    private final HttpContext context = new BasicHttpContext();
+    private final HttpResponse response = new BasicHttpResponse(new ProtocolVersion("HTTP", 1, 1), 200, "OK");
+
+    public LogbookHttpResponseInterceptorTest() throws IOException {
+        when(logbook.write(any())).thenReturn(Optional.of(correlator));
+        context.setAttribute(Attributes.REQUEST, new PendingRequest(logbook, new Request(new HttpGet("/"),
+                mock(Localhost.class))));
+    }
+
+    @Test
+    public void shouldWriteRequestIfItsBodyWasNeverSent() throws Exception {
+        new LogbookHttpResponseInterceptor().process(response, context);
+
+        final InOrder inOrder = inOrder(logbook, correlator);
+        inOrder.verify(logbook).write(any());
+        inOrder.verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldNotWriteRequestAgain() throws Exception {
+        ((PendingRequest) context.getAttribute(Attributes.REQUEST)).write();
+
+        new LogbookHttpResponseInterceptor().process(response, context);
+
+        verify(logbook).write(any());
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldWriteResponseWithoutBodyImmediately() throws Exception {
+        new LogbookHttpResponseInterceptor().process(response, context);
+
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldWriteResponseWithEmptyBodyImmediately() throws Exception {
+        response.setEntity(new StringEntity("", UTF_8));
+
+        new LogbookHttpResponseInterceptor().process(response, context);
+
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldWriteResponseOnceBodyIsConsumed() throws Exception {
+        response.setEntity(new StringEntity("Hello, world!", UTF_8));
+
+        new LogbookHttpResponseInterceptor(5).process(response, context);
+        verify(correlator, never()).write(any());
+
+        assertThat(new String(toByteArray(response.getEntity().getContent()), UTF_8), is("Hello, world!"));
+
+        final RawHttpResponse written = written();
+        assertThat(new String(written.withBody().getBody(), UTF_8), is("Hello"));
+        assertThat(written.withBody().isTruncated(), is(true));
+        assertThat(written.withBody().getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldWriteHeadersAsReceived() throws Exception {
+        response.addHeader("Content-Encoding", "identity");
+        response.setEntity(new StringEntity("Hello, world!", UTF_8));
+
+        new LogbookHttpResponseInterceptor().process(response, context);
+        response.removeHeaders("Content-Encoding");
+        toByteArray(response.getEntity().getContent());
+
+        assertThat(written().withBody().getHeaders().get("Content-Encoding"), contains("identity"));
+    }
+
+    @Test
+    public void shouldIgnoreResponsesOfRequestsThatWereNotLogged() throws Exception {
+        when(logbook.write(any())).thenReturn(Optional.empty());
+        response.setEntity(new StringEntity("Hello, world!", UTF_8));
+
+        new LogbookHttpResponseInterceptor().process(response, context);
+
+        assertThat(response.getEntity().getClass().getSimpleName(), is("StringEntity"));
+    }
+
+    @Test
+    public void shouldIgnoreResponsesWithoutRequest() throws Exception {
+        response.setEntity(new StringEntity("Hello, world!", UTF_8));
+
+        new LogbookHttpResponseInterceptor().process(response, new BasicHttpContext());
+
+        assertThat(response.getEntity().getClass().getSimpleName(), is("StringEntity"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySize() {
+        new LogbookHttpResponseInterceptor(-1);
+    }
+
+    private RawHttpResponse written() throws IOException {
+        final ArgumentCaptor<RawHttpResponse> captor = ArgumentCaptor.forClass(RawHttpResponse.class);
+        verify(correlator).write(captor.capture());
+        return captor.getValue();
+    }
+
+}
@@ -29,6 +29,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHttpRequest;
 import org.hamcrest.Matchers;
@@ -37,18 +38,20 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.zalando.logbook.BaseHttpRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 
-import static com.google.common.io.ByteStreams.toByteArray;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.*;
 import static org.hobsoft.hamcrest.compose.ComposeMatchers.hasFeature;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public final class RequestTest {
@@ -147,14 +150,69 @@ public final class RequestTest {
     }
     
     @Test
-    public void shouldReadBodyIfPresent() throws IOException {
+    public void shouldCaptureBodyWhileBeingSent() throws IOException {
         final HttpEntityEnclosingRequest delegate = post("/");
         delegate.setEntity(new StringEntity("Hello, world!", UTF_8));
+        final TeeEntity.Listener listener = mock(TeeEntity.Listener.class);
 
         final Request unit = unit(delegate);
 
-        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
-        assertThat(new String(toByteArray(delegate.getEntity().getContent()), UTF_8), is("Hello, world!"));
+        assertThat(unit.captureBody(listener), is(true));
+        assertThat(unit.captureBody(listener), is(false));
+
+        final org.zalando.logbook.HttpRequest request = unit.withBody();
+
+        assertThat(unit.isStreaming(), is(false));
+        assertThat(request.getBody().length, is(0));
+
+        final ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        delegate.getEntity().writeTo(socket);
+
+        verify(listener).onComplete("Hello, world!".getBytes(UTF_8), 13);
+        assertThat(new String(socket.toByteArray(), UTF_8), is("Hello, world!"));
+        assertThat(new String(request.getBody(), UTF_8), is("Hello, world!"));
+        assertThat(request.isTruncated(), is(false));
+        assertThat(request.getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldCaptureOnlyUpToMaxBodySize() throws IOException {
+        final HttpEntityEnclosingRequest delegate = post("/");
+        delegate.setEntity(new InputStreamEntity(new ByteArrayInputStream("Hello, world!".getBytes(UTF_8)), 13));
+
+        final Request unit = new Request(delegate, localhost, 5);
+        unit.captureBody(mock(TeeEntity.Listener.class));
+        final org.zalando.logbook.HttpRequest request = unit.withBody();
+
+        final ByteArrayOutputStream socket = new ByteArrayOutputStream();
+        delegate.getEntity().writeTo(socket);
+
+        assertThat(new String(socket.toByteArray(), UTF_8), is("Hello, world!"));
+        assertThat(delegate.getEntity().isRepeatable(), is(false));
+        assertThat(delegate.getEntity().getContentLength(), is(13L));
+        assertThat(new String(request.getBody(), UTF_8), is("Hello"));
+        assertThat(request.isTruncated(), is(true));
+        assertThat(request.getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldNotCaptureRequestsWithoutBody() throws IOException {
+        final HttpEntityEnclosingRequest delegate = post("/");
+        final Request unit = unit(delegate);
+
+        assertThat(unit.captureBody(mock(TeeEntity.Listener.class)), is(false));
+        assertThat(unit.withBody().getBody().length, is(0));
+        assertThat(unit.getBodySize(), is(0L));
+        assertThat(delegate.getEntity(), is(nullValue()));
+        assertThat(unit(get("/")).captureBody(mock(TeeEntity.Listener.class)), is(false));
+    }
+
+    @Test
+    public void shouldNotCaptureRequestsCapturedBySomebodyElse() {
+        final Request unit = new Request(post("/"), localhost, new BodyCapture(Integer.MAX_VALUE));
+
+        assertThat(unit.isStreaming(), is(false));
+        assertThat(unit.captureBody(mock(TeeEntity.Listener.class)), is(false));
     }
 
-}
\ No newline at end of file
+}
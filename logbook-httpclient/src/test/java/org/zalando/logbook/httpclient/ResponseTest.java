@@ -62,4 +62,13 @@ public final class ResponseTest {
         assertThat(delegate.getEntity(), is(nullValue()));
     }
 
+    @Test
+    public void shouldReturnCapturedBody() throws IOException {
+        final Response unit = new Response(delegate, "Hello".getBytes(UTF_8), 13);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello"));
+        assertThat(unit.isTruncated(), is(true));
+        assertThat(unit.getBodySize(), is(13L));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class TeeContentDecoderTest {
+
+    private final ContentDecoder decoder = mock(ContentDecoder.class);
+    private final BodyCapture capture = new BodyCapture(Integer.MAX_VALUE);
+    private final TeeContentDecoder unit = new TeeContentDecoder(decoder, capture);
+
+    @Test
+    public void shouldCaptureWhatWasRead() throws IOException {
+        when(decoder.read(any())).then(invocation -> {
+            invocation.getArgumentAt(0, ByteBuffer.class).put("world!".getBytes(UTF_8));
+            return 6;
+        });
+
+        // the consumer's buffer still holds what it read before
+        final ByteBuffer dst = ByteBuffer.allocate(32);
+        dst.put("Hello, ".getBytes(UTF_8));
+
+        assertThat(unit.read(dst), is(6));
+        assertThat(dst.position(), is(13));
+        assertThat(new String(capture.getBody(), UTF_8), is("world!"));
+    }
+
+    @Test
+    public void shouldNotCaptureEndOfStream() throws IOException {
+        when(decoder.read(any())).thenReturn(-1);
+        when(decoder.isCompleted()).thenReturn(true);
+
+        assertThat(unit.read(ByteBuffer.allocate(32)), is(-1));
+        assertThat(capture.getSize(), is(0L));
+        assertThat(unit.isCompleted(), is(true));
+    }
+
+    @Test
+    public void shouldKeepSupportingFileTransfers() {
+        final FileContentDecoder file = mock(FileContentDecoder.class);
+
+        assertThat(TeeContentDecoder.tee(file, capture), is(instanceOf(FileContentDecoder.class)));
+    }
+
+    @Test
+    public void shouldNotPretendToSupportFileTransfers() {
+        assertThat(TeeContentDecoder.tee(decoder, capture), is(instanceOf(TeeContentDecoder.class)));
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class TeeContentEncoderTest {
+
+    private final ContentEncoder encoder = mock(ContentEncoder.class);
+    private final BodyCapture capture = new BodyCapture(Integer.MAX_VALUE);
+    private final TeeContentEncoder unit = new TeeContentEncoder(encoder, capture);
+
+    @Test
+    public void shouldCaptureWhatWasWritten() throws IOException {
+        // the channel only takes part of it
+        when(encoder.write(any())).then(invocation -> {
+            final ByteBuffer src = invocation.getArgumentAt(0, ByteBuffer.class);
+            src.position(src.position() + 5);
+            return 5;
+        });
+
+        final ByteBuffer src = ByteBuffer.wrap("Hello, world!".getBytes(UTF_8));
+
+        assertThat(unit.write(src), is(5));
+        assertThat(src.remaining(), is(8));
+        assertThat(new String(capture.getBody(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldNotCaptureIfNothingWasWritten() throws IOException {
+        when(encoder.write(any())).thenReturn(0);
+
+        unit.write(ByteBuffer.wrap("Hello, world!".getBytes(UTF_8)));
+
+        assertThat(capture.getSize(), is(0L));
+    }
+
+    @Test
+    public void shouldDelegateCompletion() throws IOException {
+        when(encoder.isCompleted()).thenReturn(true);
+
+        unit.complete();
+
+        verify(encoder).complete();
+        assertThat(unit.isCompleted(), is(true));
+    }
+
+    @Test
+    public void shouldKeepSupportingFileTransfers() {
+        final FileContentEncoder file = mock(FileContentEncoder.class);
+
+        assertThat(TeeContentEncoder.tee(file, capture), is(instanceOf(FileContentEncoder.class)));
+    }
+
+    @Test
+    public void shouldNotPretendToSupportFileTransfers() {
+        assertThat(TeeContentEncoder.tee(encoder, capture), is(instanceOf(TeeContentEncoder.class)));
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.google.common.io.ByteStreams.toByteArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public final class TeeEntityTest {
+
+    private final TeeEntity.Listener listener = mock(TeeEntity.Listener.class);
+
+    @Test
+    public void shouldCaptureWhileReading() throws IOException {
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+        final InputStream content = unit.getContent();
+
+        assertThat(content.read(), is((int) 'H'));
+        verify(listener, never()).onComplete(any(), anyLong());
+
+        assertThat(new String(toByteArray(content), UTF_8), is("ello, world!"));
+        verify(listener).onComplete("Hello, world!".getBytes(UTF_8), 13);
+    }
+
+    @Test
+    public void shouldCaptureOnlyUpToMaxBodySize() throws IOException {
+        final TeeEntity unit = unit(5);
+        final InputStream content = unit.getContent();
+
+        content.read();
+        assertThat(new String(toByteArray(content), UTF_8), is("ello, world!"));
+        verify(listener).onComplete("Hello".getBytes(UTF_8), 13);
+    }
+
+    @Test
+    public void shouldCompleteWhenClosedEarly() throws IOException {
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+
+        try (final InputStream content = unit.getContent()) {
+            content.read(new byte[5]);
+        }
+
+        verify(listener).onComplete("Hello".getBytes(UTF_8), 5);
+    }
+
+    @Test
+    public void shouldCompleteOnlyOnce() throws IOException {
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+
+        try (final InputStream content = unit.getContent()) {
+            toByteArray(content);
+            content.read();
+        }
+
+        verify(listener, times(1)).onComplete(any(), anyLong());
+    }
+
+    @Test
+    public void shouldNotFailReadingIfListenerFails() throws IOException {
+        doThrow(new IOException("writer failed")).when(listener).onComplete(any(), anyLong());
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+
+        try (final InputStream content = unit.getContent()) {
+            assertThat(new String(toByteArray(content), UTF_8), is("Hello, world!"));
+        }
+
+        verify(listener).onComplete(any(), anyLong());
+    }
+
+    @Test
+    public void shouldNotHideWhyWritingFailedIfListenerFails() throws IOException {
+        doThrow(new IllegalStateException("formatter failed")).when(listener).onComplete(any(), anyLong());
+        final TeeEntity unit = new TeeEntity(new EntityTemplate(stream -> {
+            throw new IOException("connection reset");
+        }), new BodyCapture(Integer.MAX_VALUE), listener);
+
+        try {
+            unit.writeTo(new ByteArrayOutputStream());
+            fail("Expected exception");
+        } catch (final IOException e) {
+            assertThat(e.getMessage(), is("connection reset"));
+        }
+    }
+
+    @Test
+    public void shouldCaptureSkippedBytes() throws IOException {
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+        final InputStream content = unit.getContent();
+
+        assertThat(content.skip(0), is(0L));
+        assertThat(content.skip(7), is(7L));
+        assertThat(content.skip(100), is(6L));
+        assertThat(content.markSupported(), is(false));
+
+        verify(listener).onComplete("Hello, world!".getBytes(UTF_8), 13);
+    }
+
+    @Test
+    public void shouldCaptureWhenWrittenTo() throws IOException {
+        final TeeEntity unit = new TeeEntity(new InputStreamEntity(
+                new ByteArrayInputStream("Hello, world!".getBytes(UTF_8))), new BodyCapture(Integer.MAX_VALUE),
+                listener);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        unit.writeTo(stream);
+
+        assertThat(new String(stream.toByteArray(), UTF_8), is("Hello, world!"));
+        verify(listener).onComplete("Hello, world!".getBytes(UTF_8), 13);
+    }
+
+    @Test
+    public void shouldCompleteWhenWritingFails() throws IOException {
+        final TeeEntity unit = new TeeEntity(new EntityTemplate(stream -> {
+            stream.write("Hello".getBytes(UTF_8));
+            throw new IOException("connection reset");
+        }), new BodyCapture(Integer.MAX_VALUE), listener);
+
+        try {
+            unit.writeTo(new ByteArrayOutputStream());
+            fail("Expected exception");
+        } catch (final IOException e) {
+            assertThat(e.getMessage(), is("connection reset"));
+        }
+
+        verify(listener).onComplete("Hello".getBytes(UTF_8), 5);
+    }
+
+    @Test
+    public void shouldCaptureLastWriteOfRepeatableEntityOnly() throws IOException {
+        final BodyCapture capture = new BodyCapture(Integer.MAX_VALUE);
+        final TeeEntity unit = new TeeEntity(new StringEntity("Hello, world!", UTF_8), capture, listener);
+
+        unit.writeTo(new ByteArrayOutputStream());
+        unit.writeTo(new ByteArrayOutputStream());
+
+        assertThat(new String(capture.getBody(), UTF_8), is("Hello, world!"));
+        assertThat(capture.getSize(), is(13L));
+    }
+
+    @Test
+    public void shouldPassSingleBytesOnWhenWritten() throws IOException {
+        final BodyCapture capture = new BodyCapture(3);
+        final TeeEntity unit = new TeeEntity(new EntityTemplate(stream -> {
+            stream.write('H');
+            stream.write("ello".getBytes(UTF_8));
+        }), capture, listener);
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        unit.writeTo(stream);
+
+        assertThat(new String(stream.toByteArray(), UTF_8), is("Hello"));
+        assertThat(new String(capture.getBody(), UTF_8), is("Hel"));
+        assertThat(capture.getSize(), is(5L));
+    }
+
+    @Test
+    public void shouldCaptureFirstReadOfRepeatableEntityOnly() throws IOException {
+        final TeeEntity unit = unit(Integer.MAX_VALUE);
+
+        toByteArray(unit.getContent());
+        assertThat(new String(toByteArray(unit.getContent()), UTF_8), is("Hello, world!"));
+
+        verify(listener, times(1)).onComplete("Hello, world!".getBytes(UTF_8), 13);
+    }
+
+    private TeeEntity unit(final int maxBodySize) {
+        return new TeeEntity(new StringEntity("Hello, world!", UTF_8), new BodyCapture(maxBodySize), listener);
+    }
+
+}
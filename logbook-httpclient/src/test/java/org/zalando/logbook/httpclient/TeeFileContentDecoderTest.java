@@ -0,0 +1,99 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.FileContentDecoder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class TeeFileContentDecoderTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final FileContentDecoder decoder = mock(FileContentDecoder.class);
+    private final BodyCapture capture = new BodyCapture(Integer.MAX_VALUE);
+    private final TeeFileContentDecoder unit = new TeeFileContentDecoder(decoder, capture);
+
+    @Test
+    public void shouldCaptureWhatWasTransferred() throws IOException {
+        final Path file = folder.newFile().toPath();
+
+        try (final FileChannel channel = FileChannel.open(file, READ, WRITE)) {
+            // the consumer appends to what it received before
+            channel.write(ByteBuffer.wrap("Hello, ".getBytes(UTF_8)));
+
+            when(decoder.transfer(channel, 7, 32)).then(invocation -> {
+                channel.write(ByteBuffer.wrap("world!".getBytes(UTF_8)), 7);
+                return 6L;
+            });
+
+            assertThat(unit.transfer(channel, 7, 32), is(6L));
+        }
+
+        assertThat(new String(capture.getBody(), UTF_8), is("world!"));
+    }
+
+    @Test
+    public void shouldNotCaptureEndOfStream() throws IOException {
+        when(decoder.transfer(any(), anyLong(), eq(32L))).thenReturn(-1L);
+
+        assertThat(unit.transfer(mock(FileChannel.class), 0, 32), is(-1L));
+        assertThat(capture.getSize(), is(0L));
+    }
+
+    @Test
+    public void shouldCaptureWhatWasRead() throws IOException {
+        when(decoder.read(any())).then(invocation -> {
+            invocation.getArgumentAt(0, ByteBuffer.class).put("Hello".getBytes(UTF_8));
+            return 5;
+        });
+
+        assertThat(unit.read(ByteBuffer.allocate(32)), is(5));
+        assertThat(new String(capture.getBody(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldDelegateCompletion() {
+        when(decoder.isCompleted()).thenReturn(true);
+
+        assertThat(unit.isCompleted(), is(true));
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.zalando.logbook.httpclient;
+
+/*
+ * #%L
+ * Logbook: HTTP Client
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.http.nio.FileContentEncoder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class TeeFileContentEncoderTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final FileContentEncoder encoder = mock(FileContentEncoder.class);
+    private final BodyCapture capture = new BodyCapture(Integer.MAX_VALUE);
+    private final TeeFileContentEncoder unit = new TeeFileContentEncoder(encoder, capture);
+
+    @Test
+    public void shouldCaptureWhatWasTransferred() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, "Hello, world!".getBytes(UTF_8));
+
+        try (final FileChannel channel = FileChannel.open(file, READ)) {
+            // the channel only takes part of it
+            when(encoder.transfer(channel, 7, 6)).thenReturn(5L);
+
+            assertThat(unit.transfer(channel, 7, 6), is(5L));
+        }
+
+        assertThat(new String(capture.getBody(), UTF_8), is("world"));
+    }
+
+    @Test
+    public void shouldNotCaptureIfNothingWasTransferred() throws IOException {
+        when(encoder.transfer(any(), anyLong(), eq(13L))).thenReturn(0L);
+
+        unit.transfer(mock(FileChannel.class), 0, 13);
+
+        assertThat(capture.getSize(), is(0L));
+    }
+
+    @Test
+    public void shouldCaptureWhatWasWritten() throws IOException {
+        when(encoder.write(any())).then(invocation -> {
+            final ByteBuffer src = invocation.getArgumentAt(0, ByteBuffer.class);
+            src.position(src.limit());
+            return 5;
+        });
+
+        assertThat(unit.write(ByteBuffer.wrap("Hello".getBytes(UTF_8))), is(5));
+        assertThat(new String(capture.getBody(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldDelegateCompletion() throws IOException {
+        when(encoder.isCompleted()).thenReturn(true);
+
+        unit.complete();
+
+        verify(encoder).complete();
+        assertThat(unit.isCompleted(), is(true));
+    }
+
+}
@@ -25,6 +25,7 @@ import org.zalando.logbook.Logbook;
 final class Attributes {
 
     static final String CORRELATION = Logbook.class.getName() + ".CORRELATOR";
+    static final String EXCHANGE = Logbook.class.getName() + ".EXCHANGE";
 
     Attributes() {
         // package private so we can trick code coverage
@@ -0,0 +1,84 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands out fixed-size chunks for {@link ChunkedBuffer capture buffers} and takes them back once they are no longer
+ * needed. Small bodies only ever see the smallest size class, while larger ones move on to larger chunks, so that the
+ * number of chunks per body stays low. Each size class retains up to a fixed number of bytes, anything beyond that is
+ * left to the garbage collector.
+ */
+final class ChunkPool {
+
+    private static final int[] SIZES = {512, 4 * 1024, 32 * 1024};
+    private static final int RETAINED = 4 * 1024 * 1024;
+
+    /**
+     * Shared by all filters; set {@code logbook.servlet.direct-buffers} to {@code true} to capture bodies off-heap.
+     */
+    static final ChunkPool SHARED = new ChunkPool(Boolean.getBoolean("logbook.servlet.direct-buffers"), RETAINED);
+
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer>[] buckets;
+
+    @VisibleForTesting
+    @SuppressWarnings("unchecked")
+    ChunkPool(final boolean direct, final int retained) {
+        this.direct = direct;
+        this.buckets = new BlockingQueue[SIZES.length];
+
+        for (int index = 0; index < SIZES.length; index++) {
+            buckets[index] = new ArrayBlockingQueue<>(Math.max(1, retained / SIZES[index]));
+        }
+    }
+
+    /**
+     * @param index the position of the chunk within its buffer, which determines its size class
+     * @return an empty chunk, either a pooled or a fresh one
+     */
+    ByteBuffer acquire(final int index) {
+        final int bucket = Math.min(index, SIZES.length - 1);
+        final ByteBuffer chunk = buckets[bucket].poll();
+        return chunk == null ? allocate(SIZES[bucket]) : chunk;
+    }
+
+    private ByteBuffer allocate(final int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    void release(final ByteBuffer chunk) {
+        for (int bucket = 0; bucket < SIZES.length; bucket++) {
+            if (chunk.capacity() == SIZES[bucket]) {
+                chunk.clear();
+                // a full bucket means we're retaining enough already
+                buckets[bucket].offer(chunk);
+                return;
+            }
+        }
+    }
+
+}
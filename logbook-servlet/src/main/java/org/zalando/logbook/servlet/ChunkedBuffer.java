@@ -0,0 +1,160 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.io.CharStreams;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Growable byte buffer made of {@link ChunkPool pooled} chunks. Unlike an array based buffer, it never copies what it
+ * already holds when growing and can be read without being copied into one contiguous array first.
+ */
+final class ChunkedBuffer {
+
+    private final ChunkPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    @Nullable
+    private ByteBuffer current;
+
+    private int size;
+
+    ChunkedBuffer(final ChunkPool pool) {
+        this.pool = pool;
+    }
+
+    void write(final int b) {
+        ensureRemaining();
+        current.put((byte) b);
+        size++;
+    }
+
+    void write(final byte[] b, final int off, final int len) {
+        int offset = off;
+        int remaining = len;
+
+        while (remaining > 0) {
+            ensureRemaining();
+            final int length = Math.min(remaining, current.remaining());
+            current.put(b, offset, length);
+            offset += length;
+            remaining -= length;
+            size += length;
+        }
+    }
+
+    private void ensureRemaining() {
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire(chunks.size());
+            chunks.add(current);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        final byte[] bytes = new byte[size];
+        int position = 0;
+
+        for (final ByteBuffer chunk : chunks) {
+            final ByteBuffer content = contentOf(chunk);
+            final int length = content.remaining();
+            content.get(bytes, position, length);
+            position += length;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Decodes the chunks one after another, which spares us the contiguous copy that {@link #toByteArray()} makes.
+     */
+    String toString(final Charset charset) throws IOException {
+        return CharStreams.toString(new InputStreamReader(new ChunkInputStream(), charset));
+    }
+
+    /**
+     * Returns all chunks to the pool. The buffer is empty afterwards and must not be read from any longer.
+     */
+    void release() {
+        chunks.forEach(pool::release);
+        chunks.clear();
+        current = null;
+        size = 0;
+    }
+
+    private static ByteBuffer contentOf(final ByteBuffer chunk) {
+        final ByteBuffer content = chunk.duplicate();
+        content.flip();
+        return content;
+    }
+
+    private final class ChunkInputStream extends InputStream {
+
+        private final Iterator<ByteBuffer> iterator = chunks.iterator();
+
+        @Nullable
+        private ByteBuffer chunk;
+
+        @Override
+        public int read() {
+            return next() ? chunk.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!next()) {
+                return -1;
+            }
+
+            final int length = Math.min(len, chunk.remaining());
+            chunk.get(b, off, length);
+            return length;
+        }
+
+        private boolean next() {
+            while (chunk == null || !chunk.hasRemaining()) {
+                if (!iterator.hasNext()) {
+                    return false;
+                }
+                chunk = contentOf(iterator.next());
+            }
+            return true;
+        }
+
+    }
+
+}
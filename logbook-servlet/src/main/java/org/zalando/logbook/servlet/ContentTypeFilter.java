@@ -0,0 +1,69 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static java.util.Arrays.asList;
+
+/**
+ * Decides which response bodies are worth capturing, based on their content type. Bodies that aren't, e.g. images or
+ * downloads, are still passed on untouched, but logged as {@code <binary N bytes>} instead.
+ */
+@FunctionalInterface
+public interface ContentTypeFilter {
+
+    /**
+     * @param contentType the content type, as set by the application, including parameters; responses without one are
+     *                    always captured
+     * @return whether the body should be captured
+     */
+    boolean test(final String contentType);
+
+    static ContentTypeFilter all() {
+        return contentType -> true;
+    }
+
+    /**
+     * @param mediaTypes media types, e.g. {@code application/json}, or ranges, e.g. {@code text/*}
+     * @return a filter that captures the given media types only
+     */
+    static ContentTypeFilter allow(final String... mediaTypes) {
+        return new MediaTypeRanges(asList(mediaTypes))::matches;
+    }
+
+    /**
+     * @param mediaTypes media types, e.g. {@code application/octet-stream}, or ranges, e.g. {@code image/*}
+     * @return a filter that captures everything but the given media types
+     */
+    static ContentTypeFilter deny(final String... mediaTypes) {
+        final MediaTypeRanges ranges = new MediaTypeRanges(asList(mediaTypes));
+        return contentType -> !ranges.matches(contentType);
+    }
+
+    /**
+     * @return a filter that skips media types which aren't readable in logs anyway, i.e. images, audio, video,
+     * downloads, archives and event streams
+     */
+    static ContentTypeFilter readable() {
+        return deny("image/*", "audio/*", "video/*", "font/*", "application/octet-stream", "application/zip",
+                "application/gzip", "application/pdf", "text/event-stream");
+    }
+
+}
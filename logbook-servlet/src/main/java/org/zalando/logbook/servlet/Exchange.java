@@ -0,0 +1,88 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.zalando.logbook.Correlator;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Capture state of a request that is being logged, shared by all of its dispatches. Whoever completes it first, the
+ * last dispatch or the container once asynchronous processing is done, gets to log the response.
+ */
+final class Exchange implements AsyncListener {
+
+    private final TeeRequest request;
+    private final TeeResponse response;
+    private final Correlator correlator;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    Exchange(final TeeRequest request, final TeeResponse response, final Correlator correlator) {
+        this.request = request;
+        this.response = response;
+        this.correlator = correlator;
+    }
+
+    TeeRequest getRequest() {
+        return request;
+    }
+
+    TeeResponse getResponse() {
+        return response;
+    }
+
+    boolean isCompleted() {
+        return completed.get();
+    }
+
+    void complete() throws IOException {
+        if (completed.compareAndSet(false, true)) {
+            // async responses may complete without anybody flushing what's left in the writer's encoder
+            response.getWriter().flush();
+            correlator.write(response);
+            response.release();
+        }
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) throws IOException {
+        complete();
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+        // followed by onComplete
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+        // followed by onComplete
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+        // we register again after each dispatch that starts asynchronous processing
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Matches content types against media types, e.g. {@code image/png}, and media ranges, e.g. {@code image/*}, ignoring
+ * parameters and case.
+ */
+final class MediaTypeRanges {
+
+    private final ImmutableList<String> ranges;
+
+    MediaTypeRanges(final Collection<String> ranges) {
+        this.ranges = ImmutableList.copyOf(ranges.stream()
+                .map(MediaTypeRanges::normalize)
+                .collect(toList()));
+    }
+
+    boolean matches(final String contentType) {
+        final String mediaType = normalize(contentType);
+
+        for (final String range : ranges) {
+            if (range.equals("*/*") || range.equals(mediaType)) {
+                return true;
+            } else if (range.endsWith("/*") && mediaType.startsWith(range.substring(0, range.length() - 1))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String normalize(final String contentType) {
+        final int parameters = contentType.indexOf(';');
+        final String mediaType = parameters == -1 ? contentType : contentType.substring(0, parameters);
+        return mediaType.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
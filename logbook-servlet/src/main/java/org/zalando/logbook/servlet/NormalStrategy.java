@@ -29,53 +29,89 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Optional;
-import java.util.function.Consumer;
 
 import static org.zalando.logbook.servlet.Attributes.CORRELATION;
+import static org.zalando.logbook.servlet.Attributes.EXCHANGE;
 
 final class NormalStrategy implements Strategy {
 
+    private final int maxBodySize;
+    private final boolean streaming;
+    private final ContentTypeFilter contentTypes;
+
+    NormalStrategy() {
+        this(Integer.MAX_VALUE);
+    }
+
+    NormalStrategy(final int maxBodySize) {
+        this(maxBodySize, false);
+    }
+
+    NormalStrategy(final int maxBodySize, final boolean streaming) {
+        this(maxBodySize, streaming, ContentTypeFilter.all());
+    }
+
+    NormalStrategy(final int maxBodySize, final boolean streaming, final ContentTypeFilter contentTypes) {
+        this.maxBodySize = maxBodySize;
+        this.streaming = streaming;
+        this.contentTypes = contentTypes;
+    }
+
     @Override
     public void doFilter(final Logbook logbook, final HttpServletRequest httpRequest,
             final HttpServletResponse httpResponse, final FilterChain chain) throws ServletException, IOException {
 
-        final TeeRequest request = new TeeRequest(httpRequest);
-        final Optional<Correlator> correlator = logRequestIfNecessary(logbook, request);
-
-        if (correlator.isPresent()) {
-            final TeeResponse response = new TeeResponse(httpRequest, httpResponse);
+        final Optional<Exchange> exchange = isFirstRequest(httpRequest) ?
+                startExchange(logbook, httpRequest, httpResponse) :
+                readExchange(httpRequest);
 
-            chain.doFilter(request, response);
-            response.getWriter().flush();
-            logResponse(correlator.get(), request, response);
+        if (exchange.isPresent()) {
+            process(exchange.get(), chain);
         } else {
             chain.doFilter(httpRequest, httpResponse);
         }
     }
 
-    private Optional<Correlator> logRequestIfNecessary(final Logbook logbook, final TeeRequest request) throws IOException {
-        if (isFirstRequest(request)) {
-            final Optional<Correlator> correlator = logbook.write(request);
-            correlator.ifPresent(writeCorrelator(request));
-            return correlator;
+    private Optional<Exchange> startExchange(final Logbook logbook, final HttpServletRequest httpRequest,
+            final HttpServletResponse httpResponse) throws IOException {
+
+        final TeeRequest request = new TeeRequest(httpRequest, maxBodySize, streaming);
+        final Optional<Correlator> correlator = logbook.write(request);
+
+        if (correlator.isPresent()) {
+            final TeeResponse response = new TeeResponse(httpRequest, httpResponse, maxBodySize, contentTypes);
+            final Exchange exchange = new Exchange(request, response, correlator.get());
+            request.setAttribute(CORRELATION, correlator.get());
+            request.setAttribute(EXCHANGE, exchange);
+            return Optional.of(exchange);
         } else {
-            return readCorrelator(request);
+            return Optional.empty();
         }
     }
 
-    private Consumer<Correlator> writeCorrelator(final TeeRequest request) {
-        return correlator -> request.setAttribute(CORRELATION, correlator);
+    /**
+     * Error dispatches may also follow an exchange that was logged already, i.e. nothing is left to capture.
+     */
+    private Optional<Exchange> readExchange(final HttpServletRequest request) {
+        return Optional.ofNullable(request.getAttribute(EXCHANGE)).map(Exchange.class::cast)
+                .filter(exchange -> !exchange.isCompleted());
     }
 
-    private Optional<Correlator> readCorrelator(final TeeRequest request) {
-        return Optional.ofNullable(request.getAttribute(CORRELATION)).map(Correlator.class::cast);
-    }
+    /**
+     * Subsequent dispatches reuse the wrappers of the first one, so that there is only one capture buffer per exchange.
+     */
+    private void process(final Exchange exchange, final FilterChain chain) throws ServletException, IOException {
+        final TeeRequest request = exchange.getRequest();
+        final TeeResponse response = exchange.getResponse();
 
-    private void logResponse(final Correlator correlator, final TeeRequest request,
-            final TeeResponse response) throws IOException {
+        chain.doFilter(request, response);
+        response.getWriter().flush();
 
         if (isLastRequest(request)) {
-            correlator.write(response);
+            exchange.complete();
+        } else {
+            // the application might complete without dispatching again
+            request.getAsyncContext().addListener(exchange);
         }
     }
 
@@ -34,14 +34,33 @@ import static org.zalando.logbook.servlet.Attributes.CORRELATION;
 
 final class SecurityStrategy implements Strategy {
 
+    private final int maxBodySize;
+    private final ContentTypeFilter contentTypes;
+
+    SecurityStrategy() {
+        this(Integer.MAX_VALUE);
+    }
+
+    SecurityStrategy(final int maxBodySize) {
+        this(maxBodySize, ContentTypeFilter.all());
+    }
+
+    SecurityStrategy(final int maxBodySize, final ContentTypeFilter contentTypes) {
+        this.maxBodySize = maxBodySize;
+        this.contentTypes = contentTypes;
+    }
+
     @Override
     public void doFilter(final Logbook logbook, final HttpServletRequest httpRequest,
             final HttpServletResponse httpResponse, final FilterChain chain) throws ServletException, IOException {
 
-        final TeeRequest request = new TeeRequest(httpRequest);
-        final TeeResponse response = new TeeResponse(httpRequest, httpResponse);
+        final TeeRequest request = new TeeRequest(httpRequest, maxBodySize);
+        // authorized traffic is the norm, so we don't capture anything unless we know we need it
+        final TeeResponse response = new TeeResponse(httpRequest, httpResponse, maxBodySize, ChunkPool.SHARED,
+                this::isUnauthorized, contentTypes);
 
         chain.doFilter(request, response);
+        response.getWriter().flush();
 
         if (isUnauthorized(response)) {
             final Optional<Correlator> correlator;
@@ -56,6 +75,10 @@ final class SecurityStrategy implements Strategy {
                 correlator.get().write(response);
             }
         }
+
+        if (isLastRequest(request)) {
+            response.release();
+        }
     }
 
     private boolean isUnauthorized(final HttpServletResponse response) {
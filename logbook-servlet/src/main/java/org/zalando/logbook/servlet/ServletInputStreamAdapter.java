@@ -20,31 +20,116 @@ package org.zalando.logbook.servlet;
  * #L%
  */
 
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.Executor;
 
+/**
+ * Serves a body that was buffered already, optionally followed by the rest of the original stream. Bytes in memory are
+ * always ready to be read, so non-blocking readers will be notified about them as soon as the container gets to it.
+ */
 final class ServletInputStreamAdapter extends ServletInputStream {
 
-    private final InputStream stream;
+    private final ByteArrayInputStream buffer;
+
+    @Nullable
+    private final ServletInputStream rest;
+
+    @Nullable
+    private final Executor dispatcher;
+
+    /**
+     * @param dispatcher runs the notifications of non-blocking readers, which must not happen on the thread that
+     *                   registers the listener, e.g. {@link AsyncContext#start(Runnable)}
+     */
+    public ServletInputStreamAdapter(final ByteArrayInputStream buffer, final Executor dispatcher) {
+        this(buffer, null, dispatcher);
+    }
+
+    public ServletInputStreamAdapter(final ByteArrayInputStream buffer, final ServletInputStream rest) {
+        this(buffer, rest, null);
+    }
 
-    public ServletInputStreamAdapter(final InputStream stream) {
-        this.stream = stream;
+    private ServletInputStreamAdapter(final ByteArrayInputStream buffer, @Nullable final ServletInputStream rest,
+            @Nullable final Executor dispatcher) {
+        this.buffer = buffer;
+        this.rest = rest;
+        this.dispatcher = dispatcher;
     }
 
     @Override
     public int read() throws IOException {
-        return stream.read();
+        final int b = buffer.read();
+        return b == -1 && rest != null ? rest.read() : b;
     }
 
     @Override
-    public int read(final byte[] b) throws IOException {
-        return stream.read(b);
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read = buffer.read(b, off, len);
+        return read == -1 && rest != null ? rest.read(b, off, len) : read;
     }
 
     @Override
-    public int read(final byte[] b, final int off, final int len) throws IOException {
-        return stream.read(b, off, len);
+    public int available() throws IOException {
+        return buffer.available() + (rest == null ? 0 : rest.available());
+    }
+
+    @Override
+    public boolean isFinished() {
+        return buffer.available() == 0 && (rest == null || rest.isFinished());
+    }
+
+    @Override
+    public boolean isReady() {
+        return buffer.available() > 0 || rest == null || rest.isReady();
+    }
+
+    @Override
+    public void setReadListener(final ReadListener listener) {
+        if (rest == null) {
+            // there is nobody else who would tell the listener about it
+            dispatcher.execute(() -> announce(listener));
+        } else {
+            rest.setReadListener(new ReadListener() {
+
+                @Override
+                public void onDataAvailable() throws IOException {
+                    listener.onDataAvailable();
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    // the original stream might be done before the listener saw what we buffered
+                    if (buffer.available() > 0) {
+                        listener.onDataAvailable();
+                    }
+
+                    listener.onAllDataRead();
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    listener.onError(throwable);
+                }
+
+            });
+        }
+    }
+
+    private void announce(final ReadListener listener) {
+        try {
+            listener.onDataAvailable();
+
+            if (isFinished()) {
+                listener.onAllDataRead();
+            }
+        } catch (final IOException e) {
+            listener.onError(e);
+        }
     }
 
 }
@@ -29,17 +29,94 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.zalando.logbook.servlet.Attributes.CORRELATION;
+
 public interface Strategy {
 
     Strategy NORMAL = new NormalStrategy();
     Strategy SECURITY = new SecurityStrategy();
 
+    /**
+     * Like {@link #NORMAL}, but doesn't read request bodies upfront. They are captured while the application reads
+     * them instead and requests are written alongside their responses.
+     */
+    Strategy STREAMING = new NormalStrategy(Integer.MAX_VALUE, true);
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per request and response body; bodies are passed on
+     *                    untouched, no matter how large they are
+     * @return a strategy like {@link #NORMAL} that truncates captured bodies
+     */
+    static Strategy normal(final int maxBodySize) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new NormalStrategy(maxBodySize);
+    }
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per request and response body; bodies are passed on
+     *                    untouched, no matter how large they are
+     * @return a strategy like {@link #SECURITY} that truncates captured bodies
+     */
+    static Strategy security(final int maxBodySize) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new SecurityStrategy(maxBodySize);
+    }
+
+    /**
+     * @param maxBodySize the maximum number of bytes to capture per request and response body; bodies are passed on
+     *                    untouched, no matter how large they are
+     * @return a strategy like {@link #STREAMING} that truncates captured bodies
+     */
+    static Strategy streaming(final int maxBodySize) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new NormalStrategy(maxBodySize, true);
+    }
+
+    /**
+     * @param maxBodySize  the maximum number of bytes to capture per request and response body
+     * @param contentTypes decides which response bodies are captured at all, based on their content type
+     * @return a strategy like {@link #NORMAL} that truncates captured bodies and skips unwanted response bodies
+     * @see ContentTypeFilter#readable()
+     */
+    static Strategy normal(final int maxBodySize, final ContentTypeFilter contentTypes) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new NormalStrategy(maxBodySize, false, contentTypes);
+    }
+
+    /**
+     * @param maxBodySize  the maximum number of bytes to capture per request and response body
+     * @param contentTypes decides which response bodies are captured at all, based on their content type
+     * @return a strategy like {@link #SECURITY} that truncates captured bodies and skips unwanted response bodies
+     * @see ContentTypeFilter#readable()
+     */
+    static Strategy security(final int maxBodySize, final ContentTypeFilter contentTypes) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new SecurityStrategy(maxBodySize, contentTypes);
+    }
+
+    /**
+     * @param maxBodySize  the maximum number of bytes to capture per request and response body
+     * @param contentTypes decides which response bodies are captured at all, based on their content type
+     * @return a strategy like {@link #STREAMING} that truncates captured bodies and skips unwanted response bodies
+     * @see ContentTypeFilter#readable()
+     */
+    static Strategy streaming(final int maxBodySize, final ContentTypeFilter contentTypes) {
+        checkArgument(maxBodySize >= 0, "max body size must not be negative, but was %s", maxBodySize);
+        return new NormalStrategy(maxBodySize, true, contentTypes);
+    }
+
     void doFilter(final Logbook logbook, final HttpServletRequest httpRequest, final HttpServletResponse httpResponse,
             final FilterChain chain) throws ServletException, IOException;
 
 
+    /**
+     * Async dispatches always continue an exchange. Error dispatches do so if an earlier dispatch of the same request
+     * started one, e.g. when asynchronous processing timed out or failed.
+     */
     default boolean isFirstRequest(final HttpServletRequest request) {
-        return request.getDispatcherType() != DispatcherType.ASYNC;
+        final DispatcherType type = request.getDispatcherType();
+        return type == DispatcherType.ERROR ? request.getAttribute(CORRELATION) == null : type != DispatcherType.ASYNC;
     }
 
     default boolean isLastRequest(final HttpServletRequest request) {
@@ -20,8 +20,8 @@ package org.zalando.logbook.servlet;
  * #L%
  */
 
-import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.UnmodifiableIterator;
 import com.google.common.io.ByteArrayDataOutput;
@@ -30,34 +30,72 @@ import org.zalando.logbook.HttpRequest;
 import org.zalando.logbook.RawHttpRequest;
 
 import javax.annotation.Nullable;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
-import static com.google.common.collect.Iterators.addAll;
 import static com.google.common.collect.Iterators.forEnumeration;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 final class TeeRequest extends HttpServletRequestWrapper implements RawHttpRequest, HttpRequest {
 
-    private final ByteArrayDataOutput output = ByteStreams.newDataOutput();
-    
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    private final int maxBodySize;
+    private final boolean streaming;
+
     /**
-     * Null until we successfully intercepted it.
+     * Null until we successfully intercepted it. Shared between logging and the application, which reads it via
+     * {@link #getInputStream()}.
      */
     @Nullable
     private byte[] body;
 
-    TeeRequest(final HttpServletRequest request) {
+    private boolean truncated;
+
+    /**
+     * The byte we read beyond the maximum body size, if the body is truncated, which the application still needs to
+     * see.
+     */
+    private byte overflow;
+
+    /**
+     * Null until somebody asks for it. Requests don't change, so everybody gets to see the same one.
+     */
+    @Nullable
+    private URI requestUri;
+
+    /**
+     * Null until somebody asks for them. Requests don't change, so everybody gets to see the same ones.
+     */
+    @Nullable
+    private Multimap<String, String> headers;
+
+    /**
+     * Null unless streaming and until the application asked for the body. Captures what the application reads.
+     */
+    @Nullable
+    private TeeServletInputStream stream;
+
+    TeeRequest(final HttpServletRequest request, final int maxBodySize) {
+        this(request, maxBodySize, false);
+    }
+
+    TeeRequest(final HttpServletRequest request, final int maxBodySize, final boolean streaming) {
         super(request);
+        this.maxBodySize = maxBodySize;
+        this.streaming = streaming;
     }
 
     @Override
@@ -67,21 +105,27 @@ final class TeeRequest extends HttpServletRequestWrapper implements RawHttpReque
 
     @Override
     public URI getRequestUri() {
-        final String uri = getRequestURL().toString();
-        @Nullable final String queryString = getQueryString();
-        return URI.create(queryString == null ? uri : uri + "?" + queryString);
+        if (requestUri == null) {
+            final String uri = getRequestURL().toString();
+            @Nullable final String queryString = getQueryString();
+            this.requestUri = URI.create(queryString == null ? uri : uri + "?" + queryString);
+        }
+        return requestUri;
     }
 
     @Override
     public Multimap<String, String> getHeaders() {
-        final Multimap<String, String> headers = ArrayListMultimap.create();
-        final UnmodifiableIterator<String> iterator = forEnumeration(getHeaderNames());
+        if (headers == null) {
+            final ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+            final UnmodifiableIterator<String> iterator = forEnumeration(getHeaderNames());
 
-        while (iterator.hasNext()) {
-            final String header = iterator.next();
-            addAll(headers.get(header), forEnumeration(getHeaders(header)));
-        }
+            while (iterator.hasNext()) {
+                final String header = iterator.next();
+                builder.putAll(header, ImmutableList.copyOf(forEnumeration(getHeaders(header))));
+            }
 
+            this.headers = builder.build();
+        }
         return headers;
     }
 
@@ -95,21 +139,99 @@ final class TeeRequest extends HttpServletRequestWrapper implements RawHttpReque
         return Optional.ofNullable(getCharacterEncoding()).map(Charset::forName).orElse(ISO_8859_1);
     }
 
+    @Override
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     @Override
     public HttpRequest withBody() throws IOException {
-        final ServletInputStream stream = getInputStream();
-        final byte[] bytes = ByteStreams.toByteArray(stream);
-        output.write(bytes);
-        this.body = bytes;
+        if (streaming) {
+            // the body is captured while the application reads it
+            return this;
+        }
+
+        final long limit = maxBodySize + 1L;
+        final int contentLength = getContentLength();
+        final int expected = contentLength < 0 ? -1 : (int) Math.min(contentLength, limit);
+
+        // one more byte than we keep tells us whether there is more
+        final byte[] buffer = read(ByteStreams.limit(getInputStream(), limit), expected);
+        this.truncated = buffer.length > maxBodySize;
+
+        if (truncated) {
+            // keeps only one copy of the body around, the buffer is garbage from here on
+            this.body = Arrays.copyOf(buffer, maxBodySize);
+            this.overflow = buffer[maxBodySize];
+        } else {
+            this.body = buffer;
+        }
 
         return this;
     }
 
+    /**
+     * Reads the given stream, using the expected size, if known, as a hint for how large the buffer has to become.
+     * Clients announce the content length, so it never determines more than {@link #INITIAL_CAPACITY} upfront.
+     */
+    private static byte[] read(final InputStream stream, final int expected) throws IOException {
+        if (expected < 0) {
+            return ByteStreams.toByteArray(stream);
+        }
+
+        byte[] bytes = new byte[Math.min(expected, INITIAL_CAPACITY)];
+        int count = 0;
+
+        while (true) {
+            if (count == bytes.length) {
+                // the announced length is usually right, so check for the end before growing
+                final int next = stream.read();
+
+                if (next == -1) {
+                    return bytes;
+                }
+
+                bytes = Arrays.copyOf(bytes, grow(bytes.length, expected));
+                bytes[count++] = (byte) next;
+            }
+
+            final int read = stream.read(bytes, count, bytes.length - count);
+
+            if (read == -1) {
+                return Arrays.copyOf(bytes, count);
+            }
+
+            count += read;
+        }
+    }
+
+    /**
+     * Doubles the capacity, but stops at the expected size once, so that correctly announced bodies fit exactly.
+     */
+    private static int grow(final int capacity, final int expected) {
+        final long doubled = Math.max(capacity * 2L, INITIAL_CAPACITY);
+        return (int) Math.min(capacity < expected ? Math.min(doubled, expected) : doubled, Integer.MAX_VALUE);
+    }
+
     @Override
     public ServletInputStream getInputStream() throws IOException {
-        return body == null ?
-                super.getInputStream() :
-                new ServletInputStreamAdapter(new ByteArrayInputStream(body));
+        if (streaming) {
+            if (stream == null) {
+                this.stream = new TeeServletInputStream();
+            }
+            return stream;
+        } else if (body == null) {
+            return super.getInputStream();
+        } else if (truncated) {
+            // the application gets to see the rest of the original stream, which we didn't capture
+            final ByteArrayInputStream peeked = new ByteArrayInputStream(new byte[]{overflow});
+            final ServletInputStream rest = new ServletInputStreamAdapter(peeked, super.getInputStream());
+            return new ServletInputStreamAdapter(new ByteArrayInputStream(body), rest);
+        } else {
+            // non-blocking reads require async mode, i.e. the container can notify the listener on its own thread
+            return new ServletInputStreamAdapter(new ByteArrayInputStream(body),
+                    runnable -> getAsyncContext().start(runnable));
+        }
     }
 
     @Override
@@ -119,12 +241,114 @@ final class TeeRequest extends HttpServletRequestWrapper implements RawHttpReque
 
     @Override
     public byte[] getBody() {
+        if (streaming) {
+            // whatever the application consumed so far, which is all of it once the response is there
+            return stream == null ? new byte[0] : stream.getBody();
+        }
         return body;
     }
 
-    @VisibleForTesting
-    ByteArrayDataOutput getOutput() {
-        return output;
+    @Override
+    public boolean isTruncated() {
+        return streaming ? stream != null && stream.size > maxBodySize : truncated;
+    }
+
+    @Override
+    public long getBodySize() {
+        if (streaming) {
+            return stream == null ? 0 : stream.size;
+        }
+        // we didn't read the rest, but the client might have told us
+        return truncated ? getContentLength() : body.length;
+    }
+
+    private final class TeeServletInputStream extends ServletInputStream {
+
+        private final ServletInputStream original;
+        private final ByteArrayDataOutput output = ByteStreams.newDataOutput();
+
+        /**
+         * Number of bytes read by the application, including the ones that exceeded the maximum body size.
+         */
+        private long size;
+
+        /**
+         * Null until somebody asks for it as an array and whenever the application captured more since then.
+         */
+        @Nullable
+        private byte[] body;
+
+        private TeeServletInputStream() throws IOException {
+            this.original = TeeRequest.super.getInputStream();
+        }
+
+        private byte[] getBody() {
+            if (body == null) {
+                body = output.toByteArray();
+            }
+            return body;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = original.read();
+
+            if (b != -1) {
+                if (size < maxBodySize) {
+                    output.write(b);
+                    body = null;
+                }
+
+                size++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int read = original.read(b, off, len);
+
+            if (read > 0) {
+                final long remaining = maxBodySize - size;
+
+                if (remaining > 0) {
+                    output.write(b, off, (int) Math.min(read, remaining));
+                    body = null;
+                }
+
+                size += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return original.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            original.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return original.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return original.isReady();
+        }
+
+        @Override
+        public void setReadListener(final ReadListener listener) {
+            // the listener reads through us, so we capture whatever the container delivers
+            original.setReadListener(listener);
+        }
+
     }
 
 }
@@ -21,57 +21,122 @@ package org.zalando.logbook.servlet;
  */
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.Multimap;
-import com.google.common.io.ByteArrayDataOutput;
-import com.google.common.io.ByteStreams;
 import org.zalando.logbook.HttpResponse;
 import org.zalando.logbook.RawHttpResponse;
 
 import javax.annotation.Nullable;
 import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
 final class TeeResponse extends HttpServletResponseWrapper implements RawHttpResponse, HttpResponse {
 
+    private static final int BUFFER_SIZE = 1024;
+
     private final HttpServletRequest request;
-    private final ByteArrayDataOutput output = ByteStreams.newDataOutput();
+    private final int maxBodySize;
+    private final Predicate<HttpServletResponse> capture;
+    private final ContentTypeFilter contentTypes;
+    private final ChunkedBuffer output;
 
     private final TeeServletOutputStream stream;
-    private final PrintWriter writer;
 
     /**
-     * Null until we successfully intercepted it.
+     * Null until the application asks for it, since the charset it encodes with is only known by then.
+     */
+    @Nullable
+    private PrintWriter writer;
+
+    /**
+     * Null until somebody asks for it as an array, since formatters usually only need it as a string.
      */
     @Nullable
     private byte[] body;
 
-    TeeResponse(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+    /**
+     * Null until somebody asks for them. The application may add headers as long as it writes, hence reset once it's
+     * done.
+     */
+    @Nullable
+    private Multimap<String, String> headers;
+
+    /**
+     * Null until the application writes its first bytes, by when it usually settled on a content type. Whether the
+     * body is worth capturing at all, rather than just counting it.
+     */
+    @Nullable
+    private Boolean readable;
+
+    /**
+     * Null until the first bytes are captured. Whether the capture condition held by then, which is decided only once,
+     * so that the body is either captured from its beginning or not at all.
+     */
+    @Nullable
+    private Boolean capturing;
+
+    /**
+     * Number of bytes written by the application, including the ones that exceeded the maximum body size.
+     */
+    private long size;
+
+    TeeResponse(final HttpServletRequest request, final HttpServletResponse response, final int maxBodySize)
+            throws IOException {
+        this(request, response, maxBodySize, ChunkPool.SHARED);
+    }
+
+    TeeResponse(final HttpServletRequest request, final HttpServletResponse response, final int maxBodySize,
+            final ChunkPool pool) throws IOException {
+        this(request, response, maxBodySize, pool, self -> true, ContentTypeFilter.all());
+    }
+
+    TeeResponse(final HttpServletRequest request, final HttpServletResponse response, final int maxBodySize,
+            final ContentTypeFilter contentTypes) throws IOException {
+        this(request, response, maxBodySize, ChunkPool.SHARED, self -> true, contentTypes);
+    }
+
+    /**
+     * @param capture      decides once, when the first bytes are captured, whether the body is captured at all, e.g.
+     *                     based on the status; bodies that aren't are still passed on and counted, but logged as
+     *                     truncated
+     * @param contentTypes decides, once the first bytes are passed on, whether the body is captured at all; bodies
+     *                     that aren't are logged as a placeholder with their size
+     */
+    TeeResponse(final HttpServletRequest request, final HttpServletResponse response, final int maxBodySize,
+            final ChunkPool pool, final Predicate<HttpServletResponse> capture, final ContentTypeFilter contentTypes)
+            throws IOException {
         super(response);
         this.request = request;
+        this.maxBodySize = maxBodySize;
+        this.capture = capture;
+        this.contentTypes = contentTypes;
+        this.output = new ChunkedBuffer(pool);
         this.stream = new TeeServletOutputStream();
-        this.writer = new TeePrintWriter();
     }
 
     @Override
     public Multimap<String, String> getHeaders() {
-        final Multimap<String, String> headers = ArrayListMultimap.create();
+        if (headers == null) {
+            final ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
 
-        for (final String header : getHeaderNames()) {
-            headers.putAll(header, getHeaders(header));
-        }
+            for (final String header : getHeaderNames()) {
+                builder.putAll(header, getHeaders(header));
+            }
 
+            this.headers = builder.build();
+        }
         return headers;
     }
 
@@ -86,8 +151,10 @@ final class TeeResponse extends HttpServletResponseWrapper implements RawHttpRes
     }
 
     @Override
-    public HttpResponse withBody() {
-        this.body = output.toByteArray();
+    public HttpResponse withBody() throws IOException {
+        // everything else is captured already
+        stream.drain();
+        this.headers = null;
         return this;
     }
 
@@ -96,32 +163,103 @@ final class TeeResponse extends HttpServletResponseWrapper implements RawHttpRes
         return stream;
     }
 
+    @Override
+    public void flushBuffer() throws IOException {
+        getWriter().flush();
+        super.flushBuffer();
+    }
+
     @Override
     public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            // encodes once, straight into the tee, using whatever charset the application configured until now
+            this.writer = new PrintWriter(new OutputStreamWriter(stream, getCharset()));
+        }
         return writer;
     }
 
     @Override
     public byte[] getBody() {
+        if (body == null) {
+            this.body = isSkipped() ? placeholder().getBytes(getCharset()) : output.toByteArray();
+        }
         return body;
     }
 
-    @VisibleForTesting
-    ByteArrayDataOutput getOutput() {
-        return output;
+    @Override
+    public String getBodyAsString() throws IOException {
+        if (isSkipped()) {
+            return placeholder();
+        }
+        return body == null ? output.toString(getCharset()) : new String(body, getCharset());
+    }
+
+    /**
+     * Whether the application wrote a body that wasn't worth capturing. Empty bodies are logged as such, either way.
+     */
+    private boolean isSkipped() {
+        return size > 0 && !isReadable();
+    }
+
+    private String placeholder() {
+        return "<binary " + size + " bytes>";
     }
 
-    private final class TeePrintWriter extends PrintWriter {
+    @Override
+    public boolean isTruncated() {
+        // bodies that weren't captured since the condition didn't hold back then are missing, just like the tail of
+        // bodies that exceeded the maximum body size
+        return !isSkipped() && (size > maxBodySize || size > 0 && !isCapturing());
+    }
+
+    private boolean isCapturing() {
+        if (capturing == null) {
+            this.capturing = capture.test(this);
+        }
+        return capturing;
+    }
 
-        public TeePrintWriter() {
-            super(new OutputStreamWriter(stream, getCharset()));
+    /**
+     * Decides on the first call, i.e. usually the first write, whether the body is worth capturing based on the
+     * content type the application set until then. Bodies without content type are.
+     */
+    private boolean isReadable() {
+        if (readable == null) {
+            final String contentType = getContentType();
+            this.readable = contentType.isEmpty() || contentTypes.test(contentType);
         }
+        return readable;
+    }
+
+    @Override
+    public long getBodySize() {
+        return size;
+    }
+
+    /**
+     * Returns the captured body to the pool, once it has been logged. Neither {@link #getBody()} nor
+     * {@link #getBodyAsString()} may be called afterwards.
+     */
+    void release() {
+        output.release();
+    }
 
+    @VisibleForTesting
+    ChunkedBuffer getOutput() {
+        return output;
     }
 
+    /**
+     * Passes every write straight on to the original stream, so that the container sees everything the application
+     * wrote, e.g. when an async response completes without a flush or a non-blocking writer checks {@link #isReady()}.
+     * Only the copy for the capture buffer is coalesced in a local buffer, since template engines tend to write byte by
+     * byte.
+     */
     private final class TeeServletOutputStream extends ServletOutputStream {
 
-        private final OutputStream original;
+        private final ServletOutputStream original;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count;
 
         private TeeServletOutputStream() throws IOException {
             this.original = TeeResponse.super.getOutputStream();
@@ -129,26 +267,73 @@ final class TeeResponse extends HttpServletResponseWrapper implements RawHttpRes
 
         @Override
         public void write(final int b) throws IOException {
-            output.write(b);
             original.write(b);
+
+            if (count == buffer.length) {
+                drain();
+            }
+
+            buffer[count++] = (byte) b;
         }
 
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
-            output.write(b, off, len);
             original.write(b, off, len);
+
+            if (len >= buffer.length) {
+                // too large to be worth buffering
+                drain();
+                capture(b, off, len);
+            } else {
+                if (len > buffer.length - count) {
+                    drain();
+                }
+
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            }
+        }
+
+        private void drain() {
+            if (count > 0) {
+                capture(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        private void capture(final byte[] b, final int off, final int len) {
+            final long remaining = maxBodySize - size;
+
+            if (remaining > 0 && isReadable() && isCapturing()) {
+                output.write(b, off, (int) Math.min(len, remaining));
+            }
+
+            size += len;
         }
 
         @Override
         public void flush() throws IOException {
+            // whatever was flushed is captured, or not, based on the capture condition as of now
+            drain();
             original.flush();
         }
 
         @Override
         public void close() throws IOException {
+            drain();
             original.close();
         }
 
+        @Override
+        public boolean isReady() {
+            return original.isReady();
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener listener) {
+            original.setWriteListener(listener);
+        }
+
     }
 
 }
@@ -48,4 +48,14 @@ final class UnauthorizedHttpRequest extends ForwardingHttpRequest {
         return "";
     }
 
+    @Override
+    public boolean isTruncated() {
+        return false;
+    }
+
+    @Override
+    public long getBodySize() {
+        return 0;
+    }
+
 }
@@ -0,0 +1,98 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public final class ChunkPoolTest {
+
+    private final ChunkPool unit = new ChunkPool(false, 1024);
+
+    @Test
+    public void shouldGrowChunksBySizeClass() {
+        assertThat(unit.acquire(0).capacity(), is(512));
+        assertThat(unit.acquire(1).capacity(), is(4 * 1024));
+        assertThat(unit.acquire(2).capacity(), is(32 * 1024));
+        assertThat(unit.acquire(3).capacity(), is(32 * 1024));
+    }
+
+    @Test
+    public void shouldReuseReleasedChunks() {
+        final ByteBuffer chunk = unit.acquire(0);
+        chunk.put((byte) 1);
+
+        unit.release(chunk);
+
+        final ByteBuffer reused = unit.acquire(0);
+        assertThat(reused, is(sameInstance(chunk)));
+        assertThat(reused.position(), is(0));
+    }
+
+    @Test
+    public void shouldRetainLimitedNumberOfChunks() {
+        final ByteBuffer first = unit.acquire(0);
+        final ByteBuffer second = unit.acquire(0);
+        final ByteBuffer third = unit.acquire(0);
+
+        unit.release(first);
+        unit.release(second);
+        unit.release(third);
+
+        assertThat(unit.acquire(0), is(sameInstance(first)));
+        assertThat(unit.acquire(0), is(sameInstance(second)));
+        assertThat(unit.acquire(0), is(not(sameInstance(third))));
+    }
+
+    @Test
+    public void shouldRetainAtLeastOneChunkPerSizeClass() {
+        final ByteBuffer chunk = unit.acquire(2);
+
+        unit.release(chunk);
+
+        assertThat(unit.acquire(2), is(sameInstance(chunk)));
+    }
+
+    @Test
+    public void shouldIgnoreForeignChunks() {
+        unit.release(ByteBuffer.allocate(512 + 1));
+
+        assertThat(unit.acquire(0).capacity(), is(512));
+    }
+
+    @Test
+    public void shouldAllocateDirectChunks() {
+        assertThat(new ChunkPool(true, 1024).acquire(0).isDirect(), is(true));
+        assertThat(unit.acquire(0).isDirect(), is(false));
+    }
+
+    @Test
+    public void shouldShareHeapPoolByDefault() {
+        assertThat(ChunkPool.SHARED.acquire(0).isDirect(), is(false));
+    }
+
+}
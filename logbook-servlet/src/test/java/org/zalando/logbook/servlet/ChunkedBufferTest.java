@@ -0,0 +1,100 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class ChunkedBufferTest {
+
+    private final ChunkPool pool = new ChunkPool(false, 64 * 1024);
+    private final ChunkedBuffer unit = new ChunkedBuffer(pool);
+
+    @Test
+    public void shouldBeEmptyInitially() throws IOException {
+        assertThat(unit.size(), is(0));
+        assertThat(unit.toByteArray().length, is(0));
+        assertThat(unit.toString(UTF_8), is(""));
+    }
+
+    @Test
+    public void shouldWriteSingleBytes() throws IOException {
+        unit.write('H');
+        unit.write('i');
+
+        assertThat(unit.size(), is(2));
+        assertThat(new String(unit.toByteArray(), UTF_8), is("Hi"));
+        assertThat(unit.toString(UTF_8), is("Hi"));
+    }
+
+    @Test
+    public void shouldSpanMultipleChunks() throws IOException {
+        final String body = Strings.repeat("0123456789", 5000);
+
+        unit.write(body.getBytes(UTF_8), 0, 25_000);
+        for (final byte b : body.substring(25_000).getBytes(UTF_8)) {
+            unit.write(b);
+        }
+
+        assertThat(unit.size(), is(50_000));
+        assertThat(new String(unit.toByteArray(), UTF_8), is(body));
+        assertThat(unit.toString(UTF_8), is(body));
+    }
+
+    @Test
+    public void shouldDecodeCharactersAcrossChunkBoundaries() throws IOException {
+        // the umlaut's two bytes end up in different chunks
+        final String body = Strings.repeat("x", 511) + "ü";
+
+        final byte[] bytes = body.getBytes(UTF_8);
+        unit.write(bytes, 0, bytes.length);
+
+        assertThat(unit.toString(UTF_8), is(body));
+    }
+
+    @Test
+    public void shouldWriteNothing() throws IOException {
+        unit.write(new byte[0], 0, 0);
+
+        assertThat(unit.size(), is(0));
+        assertThat(unit.toString(UTF_8), is(""));
+    }
+
+    @Test
+    public void shouldReturnChunksOnRelease() throws IOException {
+        unit.write("Hello".getBytes(UTF_8), 0, 5);
+
+        unit.release();
+
+        assertThat(unit.size(), is(0));
+        assertThat(pool.acquire(0).position(), is(0));
+
+        unit.write("World".getBytes(UTF_8), 0, 5);
+        assertThat(unit.toString(UTF_8), is("World"));
+    }
+
+}
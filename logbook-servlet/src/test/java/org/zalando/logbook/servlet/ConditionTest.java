@@ -0,0 +1,78 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Logbook;
+
+import javax.servlet.FilterChain;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link LogbookFilter} doesn't wrap requests that are rejected by the configured condition.
+ */
+public final class ConditionTest {
+
+    private final HttpLogWriter writer = mock(HttpLogWriter.class);
+
+    private final LogbookFilter unit = new LogbookFilter(Logbook.builder()
+            .condition(request -> !request.getRequestUri().getPath().equals("/health"))
+            .writer(writer)
+            .build());
+
+    @Test
+    public void shouldPassOriginalRequestAndResponseIfRejected() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/health");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain chain = mock(FilterChain.class);
+
+        unit.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(writer, never()).isActive(any());
+        verify(writer, never()).writeRequest(any());
+        verify(writer, never()).writeResponse(any());
+    }
+
+    @Test
+    public void shouldWrapRequestAndResponseIfAccepted() throws Exception {
+        when(writer.isActive(any())).thenReturn(true);
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sync");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain chain = mock(FilterChain.class);
+
+        unit.doFilter(request, response, chain);
+
+        verify(chain).doFilter(any(TeeRequest.class), any(TeeResponse.class));
+        verify(writer).writeRequest(any());
+        verify(writer).writeResponse(any());
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public final class ContentTypeFilterTest {
+
+    @Test
+    public void shouldCaptureAll() {
+        assertThat(ContentTypeFilter.all().test("image/png"), is(true));
+    }
+
+    @Test
+    public void shouldAllowExactMediaType() {
+        final ContentTypeFilter unit = ContentTypeFilter.allow("application/json");
+
+        assertThat(unit.test("application/json"), is(true));
+        assertThat(unit.test("application/json-patch+json"), is(false));
+        assertThat(unit.test("text/plain"), is(false));
+    }
+
+    @Test
+    public void shouldIgnoreParametersAndCase() {
+        final ContentTypeFilter unit = ContentTypeFilter.allow("Application/JSON");
+
+        assertThat(unit.test("application/json;charset=UTF-8"), is(true));
+        assertThat(unit.test(" APPLICATION/JSON ; charset=UTF-8"), is(true));
+    }
+
+    @Test
+    public void shouldAllowMediaRange() {
+        final ContentTypeFilter unit = ContentTypeFilter.allow("text/*");
+
+        assertThat(unit.test("text/html"), is(true));
+        assertThat(unit.test("textual/html"), is(false));
+    }
+
+    @Test
+    public void shouldAllowWildcard() {
+        assertThat(ContentTypeFilter.allow("*/*").test("image/png"), is(true));
+    }
+
+    @Test
+    public void shouldDenyMediaTypes() {
+        final ContentTypeFilter unit = ContentTypeFilter.deny("image/*", "application/zip");
+
+        assertThat(unit.test("image/png"), is(false));
+        assertThat(unit.test("application/zip"), is(false));
+        assertThat(unit.test("application/json"), is(true));
+    }
+
+    @Test
+    public void shouldSkipUnreadableMediaTypes() {
+        final ContentTypeFilter unit = ContentTypeFilter.readable();
+
+        assertThat(unit.test("image/jpeg"), is(false));
+        assertThat(unit.test("video/mp4"), is(false));
+        assertThat(unit.test("application/octet-stream"), is(false));
+        assertThat(unit.test("application/zip"), is(false));
+        assertThat(unit.test("text/event-stream"), is(false));
+        assertThat(unit.test("application/json"), is(true));
+        assertThat(unit.test("text/html; charset=UTF-8"), is(true));
+    }
+
+}
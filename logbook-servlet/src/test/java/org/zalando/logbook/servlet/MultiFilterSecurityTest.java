@@ -39,10 +39,10 @@ import javax.servlet.ServletException;
 import java.io.IOException;
 
 import static org.hamcrest.Matchers.containsString;
-import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -126,8 +126,8 @@ public final class MultiFilterSecurityTest {
         final TeeRequest firstRequest = getRequest(securityFilter);
         final TeeRequest secondRequest = getRequest(controller);
 
-        assertThat(firstRequest.getOutput().toByteArray().length, is(equalTo(0)));
-        assertThat(secondRequest.getOutput().toByteArray().length, is(greaterThan(0)));
+        assertThat(firstRequest.getBody(), is(nullValue()));
+        assertThat(secondRequest.getBody().length, is(greaterThan(0)));
     }
 
     @Test
@@ -139,8 +139,8 @@ public final class MultiFilterSecurityTest {
         final TeeResponse firstResponse = getResponse(securityFilter);
         final TeeResponse secondResponse = getResponse(controller);
 
-        assertThat(firstResponse.getOutput().toByteArray().length, is(greaterThan(0)));
-        assertThat(secondResponse.getOutput().toByteArray().length, is(greaterThan(0)));
+        assertThat(firstResponse.getBodySize(), is(greaterThan(0L)));
+        assertThat(secondResponse.getBodySize(), is(greaterThan(0L)));
     }
 
     private TeeRequest getRequest(final Filter filter) throws IOException, ServletException {
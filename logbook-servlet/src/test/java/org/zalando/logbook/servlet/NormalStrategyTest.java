@@ -0,0 +1,264 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link NormalStrategy} captures each exchange once, no matter how many dispatches it takes.
+ */
+public final class NormalStrategyTest {
+
+    private final Logbook logbook = mock(Logbook.class);
+    private final Correlator correlator = mock(Correlator.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    private final AsyncContext context = mock(AsyncContext.class);
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private final Strategy unit = new NormalStrategy();
+
+    @Before
+    public void setUp() throws IOException {
+        when(logbook.write(any())).thenReturn(Optional.of(correlator));
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.getAsyncContext()).thenReturn(context);
+        when(request.getAttribute(anyString())).then(invocation ->
+                attributes.get(invocation.getArgumentAt(0, String.class)));
+        doAnswer(invocation -> attributes.put(invocation.getArgumentAt(0, String.class), invocation.getArguments()[1]))
+                .when(request).setAttribute(anyString(), any());
+        when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+    }
+
+    @Test
+    public void shouldLogSynchronousExchangeRightAway() throws Exception {
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(chain).doFilter(any(TeeRequest.class), any(TeeResponse.class));
+        verify(correlator).write(any(TeeResponse.class));
+        verify(context, never()).addListener(any());
+    }
+
+    @Test
+    public void shouldPassOriginalsIfNotLogged() throws Exception {
+        when(logbook.write(any())).thenReturn(Optional.empty());
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    public void shouldPassOriginalsOnAsyncDispatchIfNotLogged() throws Exception {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(logbook, never()).write(any());
+    }
+
+    @Test
+    public void shouldReuseWrappersAcrossDispatchesAndLogOnce() throws Exception {
+        when(request.isAsyncStarted()).thenReturn(true);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(correlator, never()).write(any());
+        final AsyncListener listener = getListener();
+
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        when(request.isAsyncStarted()).thenReturn(false);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        final ArgumentCaptor<ServletRequest> requests = ArgumentCaptor.forClass(ServletRequest.class);
+        final ArgumentCaptor<ServletResponse> responses = ArgumentCaptor.forClass(ServletResponse.class);
+        verify(chain, times(2)).doFilter(requests.capture(), responses.capture());
+
+        assertThat(requests.getAllValues().get(0), is(instanceOf(TeeRequest.class)));
+        assertThat(requests.getAllValues().get(1), is(sameInstance(requests.getAllValues().get(0))));
+        assertThat(responses.getAllValues().get(1), is(sameInstance(responses.getAllValues().get(0))));
+        verify(logbook).write(any());
+        verify(correlator).write(any());
+
+        listener.onComplete(mock(AsyncEvent.class));
+
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldLogWhenAsyncProcessingCompletesWithoutDispatch() throws Exception {
+        when(request.isAsyncStarted()).thenReturn(true);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        final AsyncListener listener = getListener();
+        listener.onStartAsync(mock(AsyncEvent.class));
+        listener.onTimeout(mock(AsyncEvent.class));
+        listener.onError(mock(AsyncEvent.class));
+
+        verify(correlator, never()).write(any());
+
+        listener.onComplete(mock(AsyncEvent.class));
+
+        verify(correlator).write(any(TeeResponse.class));
+    }
+
+    @Test
+    public void shouldFlushWriterWhenAsyncProcessingCompletes() throws Exception {
+        final ByteArrayOutputStream client = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                // not needed
+            }
+
+            @Override
+            public void write(final int b) {
+                client.write(b);
+            }
+        });
+
+        final List<String> bodies = new ArrayList<>();
+        doAnswer(invocation -> bodies.add(invocation.getArgumentAt(0, TeeResponse.class).getBodyAsString()))
+                .when(correlator).write(any());
+
+        when(request.isAsyncStarted()).thenReturn(true);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        final ArgumentCaptor<ServletResponse> responses = ArgumentCaptor.forClass(ServletResponse.class);
+        verify(chain).doFilter(any(), responses.capture());
+
+        // written asynchronously, without a flush
+        responses.getValue().getWriter().print("Hello, world!");
+
+        getListener().onComplete(mock(AsyncEvent.class));
+
+        assertThat(bodies, contains("Hello, world!"));
+        assertThat(new String(client.toByteArray(), ISO_8859_1), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldContinueExchangeOnErrorDispatchAfterAsyncStart() throws Exception {
+        when(request.isAsyncStarted()).thenReturn(true);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        final AsyncListener listener = getListener();
+
+        // e.g. asynchronous processing timed out
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ERROR);
+        when(request.isAsyncStarted()).thenReturn(false);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        final ArgumentCaptor<ServletRequest> requests = ArgumentCaptor.forClass(ServletRequest.class);
+        final ArgumentCaptor<ServletResponse> responses = ArgumentCaptor.forClass(ServletResponse.class);
+        verify(chain, times(2)).doFilter(requests.capture(), responses.capture());
+
+        assertThat(requests.getAllValues().get(1), is(sameInstance(requests.getAllValues().get(0))));
+        assertThat(responses.getAllValues().get(1), is(sameInstance(responses.getAllValues().get(0))));
+        verify(logbook).write(any());
+        verify(correlator).write(any());
+
+        listener.onComplete(mock(AsyncEvent.class));
+
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldPassOriginalsOnErrorDispatchAfterExchangeWasLogged() throws Exception {
+        unit.doFilter(logbook, request, response, chain);
+
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ERROR);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(logbook).write(any());
+        verify(correlator).write(any());
+    }
+
+    @Test
+    public void shouldStartExchangeOnErrorDispatchWithoutOne() throws Exception {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ERROR);
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(chain).doFilter(any(TeeRequest.class), any(TeeResponse.class));
+        verify(logbook).write(any());
+        verify(correlator).write(any());
+    }
+
+    private AsyncListener getListener() {
+        final ArgumentCaptor<AsyncListener> captor = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(context).addListener(captor.capture());
+        return captor.getValue();
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.zalando.logbook.Correlator;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.RawHttpResponse;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link SecurityStrategy} only captures response bodies of unauthorized requests.
+ */
+public final class SecurityStrategyTest {
+
+    private final Logbook logbook = mock(Logbook.class);
+    private final Correlator correlator = mock(Correlator.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    private final ByteArrayOutputStream client = new ByteArrayOutputStream();
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private final Strategy unit = new SecurityStrategy();
+
+    @Test
+    public void shouldNotCaptureAuthorizedResponse() throws Exception {
+        setUp(200);
+
+        doAnswer(invocation -> {
+            final TeeResponse tee = invocation.getArgumentAt(1, TeeResponse.class);
+            tee.getOutputStream().write("Hello".getBytes(UTF_8));
+            tee.getOutputStream().flush();
+
+            assertThat(tee.getOutput().size(), is(0));
+            assertThat(tee.getBodySize(), is(5L));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(logbook, never()).write(any());
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldCaptureUnauthorizedResponse() throws Exception {
+        setUp(401);
+        when(logbook.write(any())).thenReturn(Optional.of(correlator));
+
+        doAnswer(invocation -> {
+            invocation.getArgumentAt(1, TeeResponse.class).getOutputStream().write("Hello".getBytes(UTF_8));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        doAnswer(invocation -> {
+            final RawHttpResponse tee = invocation.getArgumentAt(0, RawHttpResponse.class);
+            assertThat(tee.withBody().getBodyAsString(), is("Hello"));
+            return null;
+        }).when(correlator).write(any());
+
+        unit.doFilter(logbook, request, response, chain);
+
+        verify(correlator).write(any());
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello"));
+    }
+
+    private void setUp(final int status) throws IOException {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+            @Override
+            public void write(final int b) throws IOException {
+                client.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                throw new UnsupportedOperationException();
+            }
+
+        });
+    }
+
+}
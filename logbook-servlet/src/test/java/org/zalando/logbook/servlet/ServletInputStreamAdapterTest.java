@@ -0,0 +1,200 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link ServletInputStreamAdapter} supports blocking as well as non-blocking readers.
+ */
+public final class ServletInputStreamAdapterTest {
+
+    private final ReadListener listener = mock(ReadListener.class);
+    private final List<Runnable> dispatched = new ArrayList<>();
+
+    @Test
+    public void shouldReadBuffer() throws IOException {
+        final ServletInputStreamAdapter unit = adapter("Hello");
+
+        assertThat(unit.isReady(), is(true));
+        assertThat(unit.isFinished(), is(false));
+        assertThat(unit.available(), is(5));
+        assertThat(unit.read(), is((int) 'H'));
+        assertThat(new String(ByteStreams.toByteArray(unit), UTF_8), is("ello"));
+        assertThat(unit.read(), is(-1));
+        assertThat(unit.isReady(), is(true));
+        assertThat(unit.isFinished(), is(true));
+    }
+
+    @Test
+    public void shouldReadRestAfterBuffer() throws IOException {
+        final ServletInputStream rest = adapter(", world!");
+        final ServletInputStreamAdapter unit = new ServletInputStreamAdapter(
+                new ByteArrayInputStream("Hello".getBytes(UTF_8)), rest);
+
+        assertThat(unit.available(), is(13));
+        assertThat(new String(ByteStreams.toByteArray(unit), UTF_8), is("Hello, world!"));
+        assertThat(unit.read(), is(-1));
+        assertThat(unit.isFinished(), is(true));
+    }
+
+    @Test
+    public void shouldBeReadyWhileBufferHasBytesLeft() throws IOException {
+        final ServletInputStream rest = mock(ServletInputStream.class);
+        final ServletInputStreamAdapter unit = new ServletInputStreamAdapter(
+                new ByteArrayInputStream("H".getBytes(UTF_8)), rest);
+
+        assertThat(unit.isReady(), is(true));
+        assertThat(unit.isFinished(), is(false));
+
+        unit.read();
+
+        assertThat(unit.isReady(), is(false));
+        assertThat(unit.isFinished(), is(false));
+
+        when(rest.isReady()).thenReturn(true);
+        when(rest.isFinished()).thenReturn(true);
+
+        assertThat(unit.isReady(), is(true));
+        assertThat(unit.isFinished(), is(true));
+    }
+
+    @Test
+    public void shouldNotifyAboutBufferViaContainer() throws IOException {
+        final ServletInputStreamAdapter unit = adapter("Hello");
+
+        doAnswer(invocation -> ByteStreams.toByteArray(unit)).when(listener).onDataAvailable();
+
+        unit.setReadListener(listener);
+
+        verify(listener, never()).onDataAvailable();
+        dispatch();
+
+        final InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onDataAvailable();
+        inOrder.verify(listener).onAllDataRead();
+    }
+
+    @Test
+    public void shouldNotNotifyAboutEndIfListenerStoppedEarly() throws IOException {
+        adapter("Hello").setReadListener(listener);
+        dispatch();
+
+        verify(listener).onDataAvailable();
+        verify(listener, never()).onAllDataRead();
+    }
+
+    @Test
+    public void shouldNotifyAboutErrors() throws IOException {
+        final IOException exception = new IOException();
+        doThrow(exception).when(listener).onDataAvailable();
+
+        adapter("Hello").setReadListener(listener);
+        dispatch();
+
+        verify(listener).onError(exception);
+    }
+
+    @Test
+    public void shouldLetOriginalStreamNotifyAboutRest() throws IOException {
+        final ServletInputStream rest = mock(ServletInputStream.class);
+        final ServletInputStreamAdapter unit = new ServletInputStreamAdapter(
+                new ByteArrayInputStream("Hello".getBytes(UTF_8)), rest);
+
+        unit.setReadListener(listener);
+
+        final ArgumentCaptor<ReadListener> captor = ArgumentCaptor.forClass(ReadListener.class);
+        verify(rest).setReadListener(captor.capture());
+        final ReadListener delegate = captor.getValue();
+
+        delegate.onDataAvailable();
+        verify(listener).onDataAvailable();
+
+        final Throwable throwable = new IllegalStateException();
+        delegate.onError(throwable);
+        verify(listener).onError(throwable);
+    }
+
+    @Test
+    public void shouldNotifyAboutBufferBeforeEnd() throws IOException {
+        final ServletInputStream rest = mock(ServletInputStream.class);
+        final ServletInputStreamAdapter unit = new ServletInputStreamAdapter(
+                new ByteArrayInputStream("Hello".getBytes(UTF_8)), rest);
+
+        unit.setReadListener(listener);
+
+        final ArgumentCaptor<ReadListener> captor = ArgumentCaptor.forClass(ReadListener.class);
+        verify(rest).setReadListener(captor.capture());
+
+        captor.getValue().onAllDataRead();
+
+        final InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onDataAvailable();
+        inOrder.verify(listener).onAllDataRead();
+    }
+
+    @Test
+    public void shouldNotNotifyAboutEmptyBufferBeforeEnd() throws IOException {
+        final ServletInputStream rest = mock(ServletInputStream.class);
+        final ServletInputStreamAdapter unit = new ServletInputStreamAdapter(new ByteArrayInputStream(new byte[0]), rest);
+
+        unit.setReadListener(listener);
+
+        final ArgumentCaptor<ReadListener> captor = ArgumentCaptor.forClass(ReadListener.class);
+        verify(rest).setReadListener(captor.capture());
+
+        captor.getValue().onAllDataRead();
+
+        verify(listener, never()).onDataAvailable();
+        verify(listener).onAllDataRead();
+    }
+
+    private ServletInputStreamAdapter adapter(final String body) {
+        return new ServletInputStreamAdapter(new ByteArrayInputStream(body.getBytes(UTF_8)), dispatched::add);
+    }
+
+    private void dispatch() {
+        dispatched.forEach(Runnable::run);
+    }
+
+}
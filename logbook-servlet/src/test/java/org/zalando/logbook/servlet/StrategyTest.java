@@ -0,0 +1,75 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+public final class StrategyTest {
+
+    @Test
+    public void shouldCreateNormalStrategyWithMaxBodySize() {
+        assertThat(Strategy.normal(1024), instanceOf(NormalStrategy.class));
+    }
+
+    @Test
+    public void shouldCreateSecurityStrategyWithMaxBodySize() {
+        assertThat(Strategy.security(1024), instanceOf(SecurityStrategy.class));
+    }
+
+    @Test
+    public void shouldCreateStreamingStrategyWithMaxBodySize() {
+        assertThat(Strategy.streaming(1024), instanceOf(NormalStrategy.class));
+    }
+
+    @Test
+    public void shouldCreateNormalStrategyWithContentTypeFilter() {
+        assertThat(Strategy.normal(1024, ContentTypeFilter.readable()), instanceOf(NormalStrategy.class));
+    }
+
+    @Test
+    public void shouldCreateSecurityStrategyWithContentTypeFilter() {
+        assertThat(Strategy.security(1024, ContentTypeFilter.readable()), instanceOf(SecurityStrategy.class));
+    }
+
+    @Test
+    public void shouldCreateStreamingStrategyWithContentTypeFilter() {
+        assertThat(Strategy.streaming(1024, ContentTypeFilter.readable()), instanceOf(NormalStrategy.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySizeOfStreamingStrategy() {
+        Strategy.streaming(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySizeOfNormalStrategy() {
+        Strategy.normal(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeMaxBodySizeOfSecurityStrategy() {
+        Strategy.security(-1);
+    }
+
+}
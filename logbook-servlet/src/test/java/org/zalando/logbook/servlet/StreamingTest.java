@@ -0,0 +1,94 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.DefaultHttpLogFormatter;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link Strategy#STREAMING} leaves reading request bodies to the application and logs them afterwards.
+ */
+public final class StreamingTest {
+
+    private final HttpLogFormatter formatter = spy(new ForwardingHttpLogFormatter(new DefaultHttpLogFormatter()));
+    private final HttpLogWriter writer = mock(HttpLogWriter.class);
+
+    private final LogbookFilter unit = new LogbookFilter(Logbook.builder()
+            .formatter(formatter)
+            .writer(writer)
+            .build(), Strategy.STREAMING);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLogBodyReadByApplication() throws Exception {
+        when(writer.isActive(any())).thenReturn(true);
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/stream");
+        request.setContent("Hello, world!".getBytes(UTF_8));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final FilterChain chain = mock(FilterChain.class);
+
+        doAnswer(invocation -> {
+            final ServletRequest teeRequest = invocation.getArgumentAt(0, ServletRequest.class);
+            assertThat(new String(ByteStreams.toByteArray(teeRequest.getInputStream()), UTF_8), is("Hello, world!"));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        unit.doFilter(request, response, chain);
+
+        final InOrder inOrder = inOrder(chain, writer);
+        inOrder.verify(chain).doFilter(any(TeeRequest.class), any(ServletResponse.class));
+        inOrder.verify(writer).writeRequest(any());
+        inOrder.verify(writer).writeResponse(any());
+
+        final ArgumentCaptor<Precorrelation> captor = ArgumentCaptor.forClass(Precorrelation.class);
+        verify(formatter).format(captor.capture());
+        final HttpRequest logged = (HttpRequest) captor.getValue().getRequest();
+
+        assertThat(logged.getBodyAsString(), is("Hello, world!"));
+    }
+
+}
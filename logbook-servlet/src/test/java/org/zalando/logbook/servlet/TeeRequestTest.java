@@ -0,0 +1,314 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.zalando.logbook.HttpRequest;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link TeeRequest} buffers request bodies exactly once, regardless of their announced length, or
+ * captures them while they are being read if streaming.
+ */
+public final class TeeRequestTest {
+
+    @Test
+    public void shouldBufferBodyOfAnnouncedLength() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldBufferBodyOfUnknownLength() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", -1), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldBufferBodyShorterThanAnnounced() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello", 13), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldBufferBodyLongerThanAnnounced() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 5), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldBufferLargeBodyOfAnnouncedLength() throws IOException {
+        final String body = Strings.repeat("Hello, world!", 1_000);
+        final TeeRequest unit = new TeeRequest(request(body, body.length()), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is(body));
+    }
+
+    @Test
+    public void shouldBufferLargeBodyLongerThanAnnounced() throws IOException {
+        final String body = Strings.repeat("Hello, world!", 1_000);
+        final TeeRequest unit = new TeeRequest(request(body, 5), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is(body));
+    }
+
+    @Test
+    public void shouldNotTrustAnnouncedLength() throws IOException {
+        // allocating the announced 2 GB upfront would fail
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 2_000_000_000), Integer.MAX_VALUE);
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldShareBufferWithApplication() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE);
+        final byte[] body = unit.withBody().getBody();
+
+        assertThat(unit.getBody(), is(sameInstance(body)));
+        assertThat(new String(ByteStreams.toByteArray(unit.getInputStream()), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldTruncateBodyButPassAllOfItOn() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), 5);
+
+        unit.withBody();
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.isTruncated(), is(true));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(new String(ByteStreams.toByteArray(unit.getInputStream()), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldTruncateBodyOfUnknownLength() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", -1), 5);
+
+        unit.withBody();
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.isTruncated(), is(true));
+        assertThat(unit.getBodySize(), is(-1L));
+    }
+
+    @Test
+    public void shouldNotTruncateBodyOfMaximumSize() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello", 5), 5);
+
+        unit.withBody();
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(5L));
+        assertThat(new String(ByteStreams.toByteArray(unit.getInputStream()), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldPassOriginalStreamOnBeforeBuffering() throws IOException {
+        final HttpServletRequest request = request("Hello", 5);
+        final TeeRequest unit = new TeeRequest(request, 5);
+
+        assertThat(unit.getInputStream(), is(sameInstance(request.getInputStream())));
+    }
+
+    @Test
+    public void shouldNotReadBodyUpfrontIfStreaming() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE, true);
+
+        assertThat(unit.isStreaming(), is(true));
+        assertThat(unit.withBody().getBody().length, is(0));
+        assertThat(unit.getBodySize(), is(0L));
+        assertThat(unit.isTruncated(), is(false));
+    }
+
+    @Test
+    public void shouldCaptureBodyWhileApplicationReadsIt() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE, true);
+        final HttpRequest request = unit.withBody();
+
+        final ServletInputStream stream = unit.getInputStream();
+        assertThat(stream.read(), is((int) 'H'));
+        assertThat(new String(request.getBody(), UTF_8), is("H"));
+
+        assertThat(new String(ByteStreams.toByteArray(stream), UTF_8), is("ello, world!"));
+        assertThat(stream.read(), is(-1));
+        assertThat(new String(request.getBody(), UTF_8), is("Hello, world!"));
+        assertThat(request.getBodySize(), is(13L));
+        assertThat(request.isTruncated(), is(false));
+    }
+
+    @Test
+    public void shouldReturnSameStreamedBodyUntilApplicationReadsMore() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE, true);
+        final ServletInputStream stream = unit.getInputStream();
+
+        assertThat(stream.read(), is((int) 'H'));
+        final byte[] body = unit.getBody();
+        assertThat(unit.getBody(), is(sameInstance(body)));
+
+        assertThat(new String(ByteStreams.toByteArray(stream), UTF_8), is("ello, world!"));
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello, world!"));
+        assertThat(unit.getBody(), is(sameInstance(unit.getBody())));
+    }
+
+    @Test
+    public void shouldReturnSameStreamIfStreaming() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), Integer.MAX_VALUE, true);
+
+        assertThat(unit.getInputStream(), is(sameInstance(unit.getInputStream())));
+    }
+
+    @Test
+    public void shouldTruncateStreamedBody() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), 5, true);
+
+        final ServletInputStream stream = unit.getInputStream();
+        assertThat(stream.read(), is((int) 'H'));
+        assertThat(new String(ByteStreams.toByteArray(stream), UTF_8), is("ello, world!"));
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(unit.isTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldTruncateStreamedBodyReadByteByByte() throws IOException {
+        final TeeRequest unit = new TeeRequest(request("Hello, world!", 13), 5, true);
+        final ServletInputStream stream = unit.getInputStream();
+
+        while (stream.read() != -1) {
+            // consume everything
+        }
+
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello"));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(unit.isTruncated(), is(true));
+    }
+
+    @Test
+    public void shouldDelegateAvailableAndCloseIfStreaming() throws IOException {
+        final ServletInputStream original = mock(ServletInputStream.class);
+        when(original.available()).thenReturn(13);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getInputStream()).thenReturn(original);
+
+        final ServletInputStream stream = new TeeRequest(request, Integer.MAX_VALUE, true).getInputStream();
+
+        assertThat(stream.available(), is(13));
+        stream.close();
+        verify(original).close();
+    }
+
+    @Test
+    public void shouldSupportNonBlockingReadsIfStreaming() throws IOException {
+        final ServletInputStream original = mock(ServletInputStream.class);
+        when(original.isReady()).thenReturn(true);
+        when(original.isFinished()).thenReturn(true);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getInputStream()).thenReturn(original);
+        final ReadListener listener = mock(ReadListener.class);
+
+        final ServletInputStream stream = new TeeRequest(request, Integer.MAX_VALUE, true).getInputStream();
+        stream.setReadListener(listener);
+
+        assertThat(stream.isReady(), is(true));
+        assertThat(stream.isFinished(), is(true));
+        verify(original).setReadListener(listener);
+    }
+
+    @Test
+    public void shouldNotifyNonBlockingReadersOfBufferedBodyViaAsyncContext() throws IOException {
+        final HttpServletRequest request = request("Hello", 5);
+        final AsyncContext context = mock(AsyncContext.class);
+        when(request.getAsyncContext()).thenReturn(context);
+        final ReadListener listener = mock(ReadListener.class);
+
+        final TeeRequest unit = new TeeRequest(request, Integer.MAX_VALUE);
+        unit.withBody();
+        unit.getInputStream().setReadListener(listener);
+
+        verify(listener, never()).onDataAvailable();
+
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(context).start(captor.capture());
+        captor.getValue().run();
+
+        verify(listener).onDataAvailable();
+    }
+
+    @Test
+    public void shouldComputeHeadersAndUriOnlyOnce() throws IOException {
+        final HttpServletRequest request = request("", 0);
+        when(request.getRequestURL()).thenReturn(new StringBuffer("http://localhost/"));
+        when(request.getQueryString()).thenReturn("limit=1");
+        when(request.getHeaderNames()).thenReturn(Collections.enumeration(asList("Accept", "Vary")));
+        when(request.getHeaders("Accept")).thenReturn(Collections.enumeration(singletonList("text/plain")));
+        when(request.getHeaders("Vary")).thenReturn(Collections.enumeration(asList("Accept", "Accept-Encoding")));
+
+        final TeeRequest unit = new TeeRequest(request, Integer.MAX_VALUE);
+
+        assertThat(unit.getRequestUri(), hasToString("http://localhost/?limit=1"));
+        assertThat(unit.getRequestUri(), is(sameInstance(unit.getRequestUri())));
+        assertThat(unit.getHeaders().asMap(), hasEntry("Vary", asList("Accept", "Accept-Encoding")));
+        assertThat(unit.getHeaders(), is(sameInstance(unit.getHeaders())));
+
+        verify(request).getRequestURL();
+        verify(request).getHeaderNames();
+    }
+
+    private static HttpServletRequest request(final String body, final int contentLength) throws IOException {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentLength()).thenReturn(contentLength);
+        when(request.getInputStream()).thenReturn(
+                new ServletInputStreamAdapter(new ByteArrayInputStream(body.getBytes(UTF_8)), Runnable::run));
+        return request;
+    }
+
+}
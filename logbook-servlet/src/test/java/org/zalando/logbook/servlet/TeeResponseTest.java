@@ -0,0 +1,342 @@
+package org.zalando.logbook.servlet;
+
+/*
+ * #%L
+ * Logbook: Servlet
+ * %%
+ * Copyright (C) 2015 Zalando SE
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Multimap;
+import org.junit.Test;
+import org.zalando.logbook.HttpResponse;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that {@link TeeResponse} limits what it captures, but not what it passes on, and how it buffers on the way.
+ */
+public final class TeeResponseTest {
+
+    private final ByteArrayOutputStream client = new ByteArrayOutputStream();
+
+    @Test
+    public void shouldCaptureCompleteBody() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE);
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello, world!"));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldTruncateBodyButPassAllOfItOn() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), 5);
+        final ServletOutputStream stream = unit.getOutputStream();
+
+        stream.write('H');
+        stream.write("ell".getBytes(UTF_8));
+        stream.write("o, world".getBytes(UTF_8));
+        stream.write('!');
+
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello"));
+        assertThat(unit.isTruncated(), is(true));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldDecodeBodyWithoutCopyingIt() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE);
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+
+        assertThat(unit.withBody().getBodyAsString(), is("Hello, world!"));
+        assertThat(new String(unit.getBody(), UTF_8), is("Hello, world!"));
+        assertThat(unit.getBody(), is(sameInstance(unit.getBody())));
+        assertThat(unit.getBodyAsString(), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldReleaseCapturedBody() throws IOException {
+        final ChunkPool pool = new ChunkPool(false, 1024);
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE, pool);
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+        unit.withBody();
+        unit.release();
+
+        assertThat(unit.getOutput().size(), is(0));
+        assertThat(unit.getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldPassOnSmallWritesWithoutFlush() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE);
+        final ServletOutputStream stream = unit.getOutputStream();
+
+        stream.write('H');
+        stream.write("ello".getBytes(UTF_8));
+
+        // e.g. an async response that completes without flushing
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello"));
+        assertThat(unit.getOutput().size(), is(0));
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is("Hello"));
+    }
+
+    @Test
+    public void shouldCaptureBufferWhenFull() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE);
+        final ServletOutputStream stream = unit.getOutputStream();
+        final String body = Strings.repeat("x", 3000);
+
+        for (final byte b : body.substring(0, 1500).getBytes(UTF_8)) {
+            stream.write(b);
+        }
+        stream.write(body.substring(1500, 2000).getBytes(UTF_8));
+        stream.write(body.substring(2000).getBytes(UTF_8));
+
+        assertThat(client.size(), is(3000));
+        assertThat(unit.getOutput().size(), is(2000));
+
+        stream.close();
+
+        assertThat(unit.getOutput().size(), is(3000));
+        assertThat(new String(unit.withBody().getBody(), UTF_8), is(body));
+    }
+
+    @Test
+    public void shouldNotBufferLargeWrites() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE);
+        final ServletOutputStream stream = unit.getOutputStream();
+        final String body = Strings.repeat("x", 2000);
+
+        stream.write('<');
+        stream.write(body.getBytes(UTF_8));
+
+        assertThat(new String(client.toByteArray(), UTF_8), is("<" + body));
+        assertThat(unit.getOutput().size(), is(2001));
+    }
+
+    @Test
+    public void shouldEncodeWithCharsetConfiguredBeforeWriterWasRequested() throws IOException {
+        final HttpServletResponse response = response();
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE);
+
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+
+        final PrintWriter writer = unit.getWriter();
+        writer.write("Grüße");
+
+        assertThat(unit.getWriter(), is(sameInstance(writer)));
+
+        unit.flushBuffer();
+
+        verify(response).flushBuffer();
+        assertThat(new String(client.toByteArray(), UTF_8), is("Grüße"));
+        assertThat(unit.withBody().getBodyAsString(), is("Grüße"));
+    }
+
+    @Test
+    public void shouldNotCaptureIfConditionDidNotHoldInitially() throws IOException {
+        final HttpServletResponse response = response();
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE,
+                new ChunkPool(false, 1024), self -> self.getStatus() == 401,
+                ContentTypeFilter.all());
+        final ServletOutputStream stream = unit.getOutputStream();
+
+        stream.write("Hello, ".getBytes(UTF_8));
+        stream.flush();
+
+        when(response.getStatus()).thenReturn(401);
+        stream.write("world!".getBytes(UTF_8));
+
+        // rather than a body whose beginning is silently missing
+        assertThat(unit.withBody().getBodyAsString(), is(""));
+        assertThat(unit.isTruncated(), is(true));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldKeepCapturingIfConditionHeldInitially() throws IOException {
+        final HttpServletResponse response = response();
+        when(response.getStatus()).thenReturn(401);
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE,
+                new ChunkPool(false, 1024), self -> self.getStatus() == 401,
+                ContentTypeFilter.all());
+        final ServletOutputStream stream = unit.getOutputStream();
+
+        stream.write("Hello, ".getBytes(UTF_8));
+        stream.flush();
+
+        when(response.getStatus()).thenReturn(200);
+        stream.write("world!".getBytes(UTF_8));
+
+        assertThat(unit.withBody().getBodyAsString(), is("Hello, world!"));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(13L));
+    }
+
+    @Test
+    public void shouldPassOnEveryWriteOfNonBlockingWriters() throws IOException {
+        final List<String> writes = new ArrayList<>();
+        final WriteListener listener = mock(WriteListener.class);
+        final ServletOutputStream original = mock(ServletOutputStream.class);
+        when(original.isReady()).thenReturn(true);
+        doAnswer(invocation -> writes.add(String.valueOf((char) invocation.getArgumentAt(0, int.class).intValue())))
+                .when(original).write(anyInt());
+        doAnswer(invocation -> writes.add(new String(invocation.getArgumentAt(0, byte[].class),
+                invocation.getArgumentAt(1, int.class), invocation.getArgumentAt(2, int.class), UTF_8)))
+                .when(original).write(any(byte[].class), anyInt(), anyInt());
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(original);
+
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE);
+        final ServletOutputStream stream = unit.getOutputStream();
+
+        stream.write('<');
+        stream.setWriteListener(listener);
+        stream.write('H');
+        stream.write("ello".getBytes(UTF_8));
+
+        assertThat(stream.isReady(), is(true));
+        verify(original).setWriteListener(listener);
+        assertThat(writes, contains("<", "H", "ello"));
+        assertThat(unit.withBody().getBodyAsString(), is("<Hello"));
+    }
+
+    @Test
+    public void shouldComputeHeadersOnlyOnceApplicationIsDone() throws IOException {
+        final HttpServletResponse response = response();
+        when(response.getHeaderNames()).thenReturn(singletonList("Vary"));
+        when(response.getHeaders("Vary")).thenReturn(asList("Accept", "Accept-Encoding"));
+
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE);
+        final Multimap<String, String> early = unit.getHeaders();
+
+        assertThat(unit.getHeaders(), is(sameInstance(early)));
+
+        final HttpResponse logged = unit.withBody();
+
+        assertThat(logged.getHeaders(), is(not(sameInstance(early))));
+        assertThat(logged.getHeaders().asMap(), hasEntry("Vary", asList("Accept", "Accept-Encoding")));
+        assertThat(logged.getHeaders(), is(sameInstance(logged.getHeaders())));
+        verify(response, times(2)).getHeaderNames();
+    }
+
+    @Test
+    public void shouldSkipExcludedContentTypeButPassItOn() throws IOException {
+        final HttpServletResponse response = response();
+        when(response.getContentType()).thenReturn("image/png");
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, 5,
+                ContentTypeFilter.readable());
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+
+        assertThat(unit.withBody().getBodyAsString(), is("<binary 13 bytes>"));
+        assertThat(new String(unit.getBody(), UTF_8), is("<binary 13 bytes>"));
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(13L));
+        assertThat(unit.getOutput().size(), is(0));
+        assertThat(new String(client.toByteArray(), UTF_8), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldDecideOnContentTypeWhenWritingStarts() throws IOException {
+        final HttpServletResponse response = response();
+        when(response.getContentType()).thenReturn("text/plain", "application/octet-stream");
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE,
+                ContentTypeFilter.readable());
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+
+        assertThat(unit.withBody().getBodyAsString(), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldCaptureBodyWithoutContentType() throws IOException {
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response(), Integer.MAX_VALUE,
+                ContentTypeFilter.allow("application/json"));
+
+        unit.getOutputStream().write("Hello, world!".getBytes(UTF_8));
+
+        assertThat(unit.withBody().getBodyAsString(), is("Hello, world!"));
+    }
+
+    @Test
+    public void shouldNotUsePlaceholderForEmptyBody() throws IOException {
+        final HttpServletResponse response = response();
+        when(response.getContentType()).thenReturn("image/png");
+        final TeeResponse unit = new TeeResponse(mock(HttpServletRequest.class), response, Integer.MAX_VALUE,
+                ContentTypeFilter.readable());
+
+        assertThat(unit.withBody().getBodyAsString(), is(""));
+        assertThat(unit.getBody().length, is(0));
+    }
+
+    private HttpServletResponse response() throws IOException {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+            @Override
+            public void write(final int b) throws IOException {
+                client.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener listener) {
+                throw new UnsupportedOperationException();
+            }
+
+        });
+        return response;
+    }
+
+}
@@ -36,7 +36,8 @@ import static org.mockito.Mockito.mock;
 
 public final class UnauthorizedHttpRequestTest {
 
-    private final HttpRequest unit = new UnauthorizedHttpRequest(new TeeRequest(mock(HttpServletRequest.class)));
+    private final HttpRequest unit = new UnauthorizedHttpRequest(
+            new TeeRequest(mock(HttpServletRequest.class), Integer.MAX_VALUE));
 
     @Test
     public void shouldRemoveBody() throws IOException {
@@ -47,5 +48,11 @@ public final class UnauthorizedHttpRequestTest {
     public void shouldRemoveBodyAsString() throws IOException {
         assertThat(unit.getBodyAsString(), is(emptyString()));
     }
+
+    @Test
+    public void shouldNotBeTruncated() throws IOException {
+        assertThat(unit.isTruncated(), is(false));
+        assertThat(unit.getBodySize(), is(0L));
+    }
     
 }
\ No newline at end of file
@@ -36,6 +36,7 @@ import org.zalando.logbook.servlet.example.ExampleController;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
@@ -103,6 +104,7 @@ public final class WritingTest {
         final Correlation<String, String> correlation = captor.getValue();
 
         assertThat(correlation.getResponse(), startsWith("Response:"));
+        assertThat(correlation.getResponse(), containsString(" ms)\n"));
         assertThat(correlation.getResponse(), endsWith(
                 "HTTP/1.1 200\n" +
                 "Content-Type: application/json\n" +
@@ -50,6 +50,7 @@ import org.zalando.logbook.Obfuscator;
 import org.zalando.logbook.servlet.LogbookFilter;
 import org.zalando.logbook.servlet.Strategy;
 
+import javax.annotation.Nullable;
 import javax.servlet.Filter;
 import java.util.Collection;
 import java.util.List;
@@ -84,7 +85,9 @@ public class LogbookAutoConfiguration {
     @ConditionalOnProperty(name = "logbook.filter.enabled", havingValue = "true", matchIfMissing = true)
     @ConditionalOnMissingBean(name = UNAUTHORIZED)
     public FilterRegistrationBean unauthorizedLogbookFilter(final Logbook logbook) {
-        final Filter filter = new LogbookFilter(logbook, Strategy.SECURITY);
+        @Nullable final Integer maxBodySize = properties.getWrite().getMaxBodySize();
+        final Strategy strategy = maxBodySize == null ? Strategy.SECURITY : Strategy.security(maxBodySize);
+        final Filter filter = new LogbookFilter(logbook, strategy);
         final FilterRegistrationBean registration = new FilterRegistrationBean(filter);
         registration.setName(UNAUTHORIZED);
         registration.setDispatcherTypes(REQUEST, ASYNC, ERROR);
@@ -97,7 +100,9 @@ public class LogbookAutoConfiguration {
     @ConditionalOnProperty(name = "logbook.filter.enabled", havingValue = "true", matchIfMissing = true)
     @ConditionalOnMissingBean(name = AUTHORIZED)
     public FilterRegistrationBean authorizedLogbookFilter(final Logbook logbook) {
-        final Filter filter = new LogbookFilter(logbook);
+        @Nullable final Integer maxBodySize = properties.getWrite().getMaxBodySize();
+        final Strategy strategy = maxBodySize == null ? Strategy.NORMAL : Strategy.normal(maxBodySize);
+        final Filter filter = new LogbookFilter(logbook, strategy);
         final FilterRegistrationBean registration = new FilterRegistrationBean(filter);
         registration.setName(AUTHORIZED);
         registration.setDispatcherTypes(REQUEST, ASYNC, ERROR);
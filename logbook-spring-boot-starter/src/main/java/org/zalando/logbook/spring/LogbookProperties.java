@@ -60,6 +60,7 @@ public final class LogbookProperties {
 
         private String category;
         private Level level;
+        private Integer maxBodySize;
 
         @Nullable
         public String getCategory() {
@@ -79,6 +80,15 @@ public final class LogbookProperties {
             this.level = level;
         }
 
+        @Nullable
+        public Integer getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(Integer maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
     }
 
 }